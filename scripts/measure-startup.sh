@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Measures startup time and first request latency of the default jar
+# against the fast-startup build (Spring AOT + CDS archive).
+#
+#   ./mvnw -Pfast-startup package -DskipTests
+#   scripts/measure-startup.sh [runs]
+#
+# For each mode the app is started <runs> times (default 5). Reported values:
+#   ready_ms      - JVM launch until /actuator/health/readiness reports UP (after ParseWarmup)
+#   first_req_ms  - latency of the first GET /advanced/users/1, sent once ready
+#   started_s     - "Started TestProjectApplication in ..." from the Spring log
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAR="$TARGET/test-project-1.0-SNAPSHOT.jar"
+EXTRACTED="$TARGET/extracted"
+
+if [[ ! -f "$JAR" || ! -f "$EXTRACTED/application.jsa" ]]; then
+    echo "Build first: ./mvnw -Pfast-startup package -DskipTests" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local mode="$1"
+    shift
+    local log
+    log="$(mktemp)"
+
+    local start
+    start="$(now_ms)"
+    "$JAVA" "$@" --server.port="$PORT" >"$log" 2>&1 &
+    local pid=$!
+
+    # readiness answers 503 until the warm-up finished, -f makes curl fail on it
+    until curl -sf "http://localhost:$PORT/actuator/health/readiness" | grep -q '"UP"'; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$mode: application exited, see $log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    local ready=$(( $(now_ms) - start ))
+
+    local first_req
+    first_req="$(curl -sf -o /dev/null -w '%{time_total}' \
+        -H 'Accept: application/x-protobuf' "http://localhost:$PORT/advanced/users/1")"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    local started
+    started="$(grep -o 'Started TestProjectApplication in [0-9.]*' "$log" | awk '{print $NF}')"
+    rm -f "$log"
+
+    printf '%-14s ready_ms=%-6s first_req_ms=%-8s started_s=%s\n' \
+        "$mode" "$ready" "$(awk "BEGIN {print $first_req * 1000}")" "$started"
+}
+
+for ((i = 1; i <= RUNS; i++)); do
+    measure default -jar "$JAR"
+    (cd "$EXTRACTED" && measure aot+cds -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        -jar test-project-1.0-SNAPSHOT.jar)
+done
@@ -0,0 +1,123 @@
+package com.example.testproject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient based concurrency limiter.
+ * Compares the average latency of each window of samples against a long term average: while latency is
+ * stable the limit grows by a small queue allowance, when latency climbs the limit shrinks proportionally.
+ * Callers that do not get a permit should shed the request.
+ * <p>
+ * Releases only add to striped counters; whichever release completes a window and wins the update flag
+ * recomputes the limit, so the protected endpoint never waits on a shared monitor.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // latency may grow this much over the long term average before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_ALPHA = 0.01;
+    // elevated latency only slowly becomes the new normal, otherwise an overload would be accepted within a few samples
+    private static final double LONG_RTT_ALPHA_ELEVATED = 0.001;
+    private static final int SAMPLE_WINDOW = 16;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Math::max, 0);
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private volatile int limit;
+    // only touched by the thread holding the updating flag
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "Expected 1 <= minLimit <= initialLimit <= maxLimit but got "
+                            + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * @return true if the caller may proceed, it must call {@link #release(long)} when done
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(long rttNanos) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        if (rttNanos <= 0) {
+            return;
+        }
+        windowRttNanos.add(rttNanos);
+        windowMaxInFlight.accumulate(inFlightAtRelease);
+        windowSamples.increment();
+        if (windowSamples.sum() >= SAMPLE_WINDOW && updating.compareAndSet(false, true)) {
+            try {
+                updateLimit();
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    // the three counters are reset one after another, a concurrent sample may land in the next window
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        if (samples == 0) {
+            return;
+        }
+        long rttNanos = windowRttNanos.sumThenReset() / samples;
+        // peak concurrency of the window, sampled as each request was released
+        long maxInFlight = windowMaxInFlight.getThenReset();
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            double alpha = rttNanos > TOLERANCE * longRttNanos ? LONG_RTT_ALPHA_ELEVATED : LONG_RTT_ALPHA;
+            longRttNanos += (rttNanos - longRttNanos) * alpha;
+        }
+        // a long overload drags the average up with it, let it recover quickly once latency drops
+        if (longRttNanos > 2 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        // an idle limiter gives no signal on whether more concurrency is safe
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -1,34 +1,64 @@
 package com.example.testproject;
 
 import com.example.testproject.proto.advanced.AdvancedUserProto.*;
-import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/advanced/users")
 public class AdvancedUserController {
 
-    // Returning protobuf
+    /**
+     * How the parse endpoints read User bodies.
+     */
+    public enum ParseMode {
+        // User.parseFrom, decodes every string
+        STANDARD,
+        // LazyUser, strings are validated but only decoded when read
+        LAZY_UTF8
+    }
+
+    private final UserLookupService userLookupService;
+    private final ProtobufDecoder protobufDecoder;
+    private final ParseMode parseMode;
+
+    public AdvancedUserController(
+            UserLookupService userLookupService,
+            ProtobufDecoder protobufDecoder,
+            @Value("${protobuf.parse.mode:standard}") ParseMode parseMode) {
+        this.userLookupService = userLookupService;
+        this.protobufDecoder = protobufDecoder;
+        this.parseMode = parseMode;
+    }
+
+    // Returning protobuf, asynchronously: the Tomcat thread is not held while the lookup is batched
     @GetMapping(
             value = "/{id}",
             produces = "application/x-protobuf")
-    public byte[] getUserAsProtobuf(@PathVariable long id) {
-        User user = User.newBuilder()
-                .setId(id)
-                .setName("User " + id)
-                .setGender(Gender.MALE)
-                .addTags("vip")
-                .build();
-        return user.toByteArray();
+    public CompletableFuture<byte[]> getUserAsProtobuf(@PathVariable long id) {
+        return userLookupService.getSerialized(id);
+    }
+
+    // Multi-get, length-delimited User stream in the order of the ids
+    @GetMapping(
+            produces = "application/x-protobuf")
+    public byte[] getUsersAsProtobuf(@RequestParam long[] ids) {
+        return userLookupService.getAllDelimited(ids);
     }
 
     // Receiving protobuf
     @PostMapping(
             value = "/parse",
             consumes = "application/x-protobuf")
-    public String parseUser(@RequestBody byte[] body) throws InvalidProtocolBufferException {
-        User user = User.parseFrom(body);
+    public String parseUser(@RequestBody byte[] body) {
+        if (parseMode == ParseMode.LAZY_UTF8) {
+            LazyUser user = protobufDecoder.decode(body, LazyUser::parse);
+            return "OK:" + user.getId() + ":" + user.getName();
+        }
+        User user = protobufDecoder.decode(body, User.parser());
         return "OK:" + user.getId() + ":" + user.getName();
     }
 
@@ -56,11 +86,10 @@ public class AdvancedUserController {
             value = "/parse-safe",
             consumes = "application/x-protobuf")
     public String parseUserSafe(@RequestBody byte[] body) {
-        try {
-            User user = User.parseFrom(body);
-            return "OK : " + user.getId();
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid protobuf", e);
-        }
+        // failures surface as ProtobufDecodeException, see ControllerAdvice
+        long id = parseMode == ParseMode.LAZY_UTF8
+                ? protobufDecoder.decode(body, LazyUser::parse).getId()
+                : protobufDecoder.decode(body, User.parser()).getId();
+        return "OK : " + id;
     }
 }
@@ -0,0 +1,102 @@
+package com.example.testproject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Training run of the fast-startup build ({@code startup.training-run=true}): once readiness reports
+ * ACCEPTING_TRAFFIC, that is after {@link ParseWarmup} ran, sends one request to each kind of endpoint and exits. The CDS archive
+ * dumped at exit then also holds the classes of the warm-up and of the first requests, not only the ones
+ * loaded while refreshing the context.
+ * <p>
+ * The property is read at runtime instead of through a condition, because Spring AOT fixes the bean
+ * definitions at build time.
+ */
+@Component
+public class CdsTrainingRun implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+    private static final Logger log = LoggerFactory.getLogger(CdsTrainingRun.class);
+
+    private static final int READINESS_ATTEMPTS = 500;
+
+    private final boolean enabled;
+    private final ApplicationContext context;
+
+    public CdsTrainingRun(@Value("${startup.training-run:false}") boolean enabled, ApplicationContext context) {
+        this.enabled = enabled;
+        this.context = context;
+    }
+
+    @Override
+    public void onApplicationEvent(AvailabilityChangeEvent<ReadinessState> event) {
+        if (!enabled || event.getState() != ReadinessState.ACCEPTING_TRAFFIC
+                || !(context instanceof WebServerApplicationContext web)) {
+            return;
+        }
+        // on its own thread, the readiness probe only reports UP once every listener of this event returned
+        String baseUrl = "http://localhost:" + web.getWebServer().getPort();
+        Thread thread = new Thread(() -> run(baseUrl), "cds-training-run");
+        thread.start();
+    }
+
+    private void run(String baseUrl) {
+        int exitCode = 0;
+        try {
+            exercise(baseUrl);
+        } catch (IOException e) {
+            log.error("Training run requests failed", e);
+            exitCode = 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = 1;
+        }
+        log.info("Training run finished, exiting");
+        System.exit(SpringApplication.exit(context, () -> 0) + exitCode);
+    }
+
+    private static void exercise(String baseUrl) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest readiness = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness")).build();
+        for (int attempt = 0; send(client, readiness) != 200; attempt++) {
+            if (attempt == READINESS_ATTEMPTS) {
+                throw new IOException("Readiness still down after " + attempt + " attempts");
+            }
+            Thread.sleep(10);
+        }
+
+        byte[] payload = ParseWarmup.samplePayloads().get(0);
+        HttpRequest[] requests = {
+                HttpRequest.newBuilder(URI.create(baseUrl + "/advanced/users/1"))
+                        .header("Accept", "application/x-protobuf").build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/advanced/users/1/json"))
+                        .header("Accept", "application/json").build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/advanced/users/parse"))
+                        .header("Content-Type", "application/x-protobuf")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(payload)).build(),
+        };
+        for (HttpRequest request : requests) {
+            int status = send(client, request);
+            if (status != 200) {
+                throw new IOException(request.uri() + " answered " + status);
+            }
+        }
+    }
+
+    private static int send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -1,16 +1,62 @@
 package com.example.testproject;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestControllerAdvice
 public class ControllerAdvice {
 
+    private static final MediaType PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
     @ExceptionHandler(value = IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public String handleIllegalArgumentException(IllegalArgumentException e) {
         return "BAD_REQUEST:" + e.getMessage();
     }
+
+    // protobuf Error if the client accepts it, JSON otherwise, both bodies are preencoded
+    @ExceptionHandler(value = ProtobufDecodeException.class)
+    public ResponseEntity<byte[]> handleProtobufDecodeException(
+            ProtobufDecodeException e, WebRequest request) {
+        boolean protobuf = prefersProtobuf(request.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.status(e.getStatus())
+                .contentType(protobuf ? PROTOBUF : MediaType.APPLICATION_JSON)
+                .body(protobuf ? e.getProtobufBody() : e.getJsonBody());
+    }
+
+    // the most preferred acceptable type decides, JSON unless protobuf ranks first
+    static boolean prefersProtobuf(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(types);
+        for (MediaType type : types) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (type.isCompatibleWith(PROTOBUF)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,91 @@
+package com.example.testproject;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * Schema-agnostic endpoints: the X-Proto-Message header names the message type
+ * (e.g. versioning.UserV2) and {@link SchemaRegistry} provides its descriptor.
+ */
+@RestController
+@RequestMapping("/dynamic")
+public class DynamicMessageController {
+
+    static final String MESSAGE_TYPE_HEADER = "X-Proto-Message";
+
+    private final SchemaRegistry schemaRegistry;
+    private final ProtobufDecoder protobufDecoder;
+    private final boolean runtimeRegistration;
+    private final JsonFormat.Printer jsonPrinter = JsonFormat.printer().omittingInsignificantWhitespace();
+    private final JsonFormat.Parser jsonParser = JsonFormat.parser();
+
+    public DynamicMessageController(
+            SchemaRegistry schemaRegistry,
+            ProtobufDecoder protobufDecoder,
+            @Value("${protobuf.schemas.runtime-registration:false}") boolean runtimeRegistration) {
+        this.schemaRegistry = schemaRegistry;
+        this.protobufDecoder = protobufDecoder;
+        this.runtimeRegistration = runtimeRegistration;
+    }
+
+    // protobuf in, JSON out
+    @PostMapping(
+            value = "/messages/parse",
+            consumes = "application/x-protobuf",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public String parse(@RequestHeader(MESSAGE_TYPE_HEADER) String messageType, @RequestBody byte[] body)
+            throws InvalidProtocolBufferException {
+        MessageSchema schema = schemaRegistry.get(messageType);
+        Message message = protobufDecoder.decode(body, schema.getParser());
+        return jsonPrinter.print(message);
+    }
+
+    // JSON in, protobuf out
+    @PostMapping(
+            value = "/messages/serialize",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = "application/x-protobuf")
+    public byte[] serialize(@RequestHeader(MESSAGE_TYPE_HEADER) String messageType, @RequestBody String json) {
+        MessageSchema schema = schemaRegistry.get(messageType);
+        Message.Builder builder = schema.newBuilder();
+        try {
+            jsonParser.merge(json, builder);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Invalid JSON for " + messageType, e);
+        }
+        return schema.serialize(builder.build());
+    }
+
+    @GetMapping(
+            value = "/schemas",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Set<String> messageTypes() {
+        return schemaRegistry.messageTypes();
+    }
+
+    // register a FileDescriptorSet (protoc --descriptor_set_out --include_imports) at runtime,
+    // unauthenticated, so only when protobuf.schemas.runtime-registration is switched on
+    @PostMapping(
+            value = "/schemas",
+            consumes = "application/x-protobuf",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Set<String> registerSchemas(@RequestBody byte[] body) {
+        if (!runtimeRegistration) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Runtime schema registration is disabled");
+        }
+        try {
+            return schemaRegistry.register(FileDescriptorSet.parseFrom(body));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Invalid FileDescriptorSet", e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of an advanced.User payload whose string fields stay {@link Utf8Bytes} until accessed.
+ * <p>
+ * Parsing validates UTF-8 like {@link User#parseFrom} does, but does not decode any string, which is
+ * most of the parse cost when a handler only forwards or compares them.
+ * The wire format is read by hand here, so it has to follow advanced_user.proto. Unknown fields are skipped.
+ */
+public final class LazyUser {
+
+    private long id;
+    private Utf8Bytes name = Utf8Bytes.EMPTY;
+    private List<Utf8Bytes> tags = Collections.emptyList();
+    private Utf8Bytes nickname;
+    private int genderValue;
+    private boolean hasGender;
+    private Utf8Bytes contactAddress = Utf8Bytes.EMPTY;
+    private Utf8Bytes contactZip = Utf8Bytes.EMPTY;
+    private boolean hasContact;
+    private User.LoginMethodCase loginMethodCase = User.LoginMethodCase.LOGINMETHOD_NOT_SET;
+    private Utf8Bytes emailLogin = Utf8Bytes.EMPTY;
+    private Utf8Bytes phoneCountry = Utf8Bytes.EMPTY;
+    private Utf8Bytes phoneNumber = Utf8Bytes.EMPTY;
+
+    private LazyUser() {
+    }
+
+    /**
+     * The returned view keeps referencing {@code body}.
+     */
+    public static LazyUser parse(byte[] body) throws InvalidProtocolBufferException {
+        LazyUser user = new LazyUser();
+        CodedInputStream in = CodedInputStream.newInstance(body);
+        try {
+            user.read(in, body);
+            in.checkLastTagWas(0);
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+        return user;
+    }
+
+    private void read(CodedInputStream in, byte[] body) throws IOException {
+        while (true) {
+            int tag = in.readTag();
+            switch (tag) {
+                case 0:
+                    return;
+                case 8:
+                    id = in.readInt64();
+                    break;
+                case 18:
+                    name = readUtf8(in, body);
+                    break;
+                case 26:
+                    if (tags.isEmpty()) {
+                        tags = new ArrayList<>(4);
+                    }
+                    tags.add(readUtf8(in, body));
+                    break;
+                case 34:
+                    nickname = readUtf8(in, body);
+                    break;
+                case 40:
+                    genderValue = in.readEnum();
+                    hasGender = true;
+                    break;
+                case 50:
+                    readContact(in, body);
+                    hasContact = true;
+                    break;
+                case 58:
+                    emailLogin = readUtf8(in, body);
+                    loginMethodCase = User.LoginMethodCase.EMAIL_LOGIN;
+                    break;
+                case 66:
+                    if (loginMethodCase != User.LoginMethodCase.PHONE_LOGIN) {
+                        phoneCountry = Utf8Bytes.EMPTY;
+                        phoneNumber = Utf8Bytes.EMPTY;
+                    }
+                    readPhone(in, body);
+                    loginMethodCase = User.LoginMethodCase.PHONE_LOGIN;
+                    break;
+                default:
+                    if (!in.skipField(tag)) {
+                        return;
+                    }
+            }
+        }
+    }
+
+    private void readContact(CodedInputStream in, byte[] body) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == 10) {
+                contactAddress = readUtf8(in, body);
+            } else if (tag == 18) {
+                contactZip = readUtf8(in, body);
+            } else if (!in.skipField(tag)) {
+                break;
+            }
+        }
+        in.checkLastTagWas(0);
+        in.popLimit(limit);
+    }
+
+    private void readPhone(CodedInputStream in, byte[] body) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == 10) {
+                phoneCountry = readUtf8(in, body);
+            } else if (tag == 18) {
+                phoneNumber = readUtf8(in, body);
+            } else if (!in.skipField(tag)) {
+                break;
+            }
+        }
+        in.checkLastTagWas(0);
+        in.popLimit(limit);
+    }
+
+    // the bytes stay in the body, only their position is recorded
+    private static Utf8Bytes readUtf8(CodedInputStream in, byte[] body) throws IOException {
+        int length = in.readRawVarint32();
+        if (length < 0) {
+            throw new InvalidProtocolBufferException("CodedInputStream encountered an embedded string or message which claimed to have negative size.");
+        }
+        int offset = in.getTotalBytesRead();
+        in.skipRawBytes(length);
+        return Utf8Bytes.validate(body, offset, length);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Utf8Bytes getName() {
+        return name;
+    }
+
+    public List<Utf8Bytes> getTags() {
+        return Collections.unmodifiableList(tags);
+    }
+
+    public boolean hasNickname() {
+        return nickname != null;
+    }
+
+    public Utf8Bytes getNickname() {
+        return nickname != null ? nickname : Utf8Bytes.EMPTY;
+    }
+
+    public boolean hasGender() {
+        return hasGender;
+    }
+
+    public int getGenderValue() {
+        return genderValue;
+    }
+
+    public Gender getGender() {
+        Gender gender = Gender.forNumber(genderValue);
+        return gender != null ? gender : Gender.UNRECOGNIZED;
+    }
+
+    public boolean hasContact() {
+        return hasContact;
+    }
+
+    public Utf8Bytes getContactAddress() {
+        return contactAddress;
+    }
+
+    public Utf8Bytes getContactZip() {
+        return contactZip;
+    }
+
+    public User.LoginMethodCase getLoginMethodCase() {
+        return loginMethodCase;
+    }
+
+    public Utf8Bytes getEmailLogin() {
+        return loginMethodCase == User.LoginMethodCase.EMAIL_LOGIN ? emailLogin : Utf8Bytes.EMPTY;
+    }
+
+    public Utf8Bytes getPhoneCountry() {
+        return loginMethodCase == User.LoginMethodCase.PHONE_LOGIN ? phoneCountry : Utf8Bytes.EMPTY;
+    }
+
+    public Utf8Bytes getPhoneNumber() {
+        return loginMethodCase == User.LoginMethodCase.PHONE_LOGIN ? phoneNumber : Utf8Bytes.EMPTY;
+    }
+
+    /**
+     * Decodes everything into the generated message.
+     */
+    public User toUser() {
+        User.Builder builder = User.newBuilder()
+                .setId(id)
+                .setName(name.toString());
+        for (Utf8Bytes tag : tags) {
+            builder.addTags(tag.toString());
+        }
+        if (nickname != null) {
+            builder.setNickname(nickname.toString());
+        }
+        if (hasGender) {
+            builder.setGenderValue(genderValue);
+        }
+        if (hasContact) {
+            builder.setContact(ContactInfo.newBuilder()
+                    .setAddress(contactAddress.toString())
+                    .setZip(contactZip.toString()));
+        }
+        switch (loginMethodCase) {
+            case EMAIL_LOGIN -> builder.setEmailLogin(emailLogin.toString());
+            case PHONE_LOGIN -> builder.setPhoneLogin(PhoneNumber.newBuilder()
+                    .setCountry(phoneCountry.toString())
+                    .setNumber(phoneNumber.toString()));
+            default -> {
+            }
+        }
+        return builder.build();
+    }
+}
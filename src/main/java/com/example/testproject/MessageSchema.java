@@ -0,0 +1,84 @@
+package com.example.testproject;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+/**
+ * A message type loaded by {@link SchemaRegistry}, with its parser and default instance resolved once.
+ * <p>
+ * Types that only exist at runtime are handled as {@link DynamicMessage}, which parses about four times
+ * slower than generated code. Only when the loaded descriptor is identical to a compiled one does the
+ * generated class do the work instead. There is deliberately no faster reader for runtime types: just
+ * filling the DynamicMessage builder with already decoded values costs more than half of the parse
+ * (buildRuntimeOnly in DynamicMessageBenchmark), and a reader built per descriptor measured no better
+ * than {@code DynamicMessage.parseFrom}. Types that need generated speed have to be compiled in.
+ */
+public final class MessageSchema {
+
+    private final Descriptor descriptor;
+    private final Message defaultInstance;
+    private final Parser<? extends Message> parser;
+
+    MessageSchema(Descriptor descriptor) {
+        this(DynamicMessage.getDefaultInstance(descriptor));
+    }
+
+    MessageSchema(Message defaultInstance) {
+        this.descriptor = defaultInstance.getDescriptorForType();
+        this.defaultInstance = defaultInstance;
+        this.parser = defaultInstance.getParserForType();
+    }
+
+    public String getFullName() {
+        return descriptor.getFullName();
+    }
+
+    public Descriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return true if a generated class backs this schema
+     */
+    public boolean isCompiled() {
+        return !(defaultInstance instanceof DynamicMessage);
+    }
+
+    public Parser<? extends Message> getParser() {
+        return parser;
+    }
+
+    public Message parse(byte[] bytes) throws InvalidProtocolBufferException {
+        return parser.parseFrom(bytes);
+    }
+
+    public Message.Builder newBuilder() {
+        return defaultInstance.newBuilderForType();
+    }
+
+    /**
+     * @return the field or null if this message has no such field
+     */
+    public FieldDescriptor field(String name) {
+        return descriptor.findFieldByName(name);
+    }
+
+    /**
+     * @return the field or null if this message has no such field
+     */
+    public FieldDescriptor field(int number) {
+        return descriptor.findFieldByNumber(number);
+    }
+
+    public byte[] serialize(Message message) {
+        if (message.getDescriptorForType() != descriptor) {
+            throw new IllegalArgumentException(
+                    "Expected " + getFullName() + " but got " + message.getDescriptorForType().getFullName());
+        }
+        return message.toByteArray();
+    }
+}
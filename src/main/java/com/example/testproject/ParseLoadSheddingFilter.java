@@ -0,0 +1,77 @@
+package com.example.testproject;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds load with 503 on the protobuf parse endpoints once
+ * {@link AdaptiveConcurrencyLimiter} sees their latency climbing.
+ */
+@Component
+public class ParseLoadSheddingFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Set<String> PARSE_PATHS = Set.of(
+            "/advanced/users/parse",
+            "/advanced/users/parse-safe");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final LongAdder shed = new LongAdder();
+
+    public ParseLoadSheddingFilter(
+            @Value("${protobuf.parse.limiter.initial-limit:64}") int initialLimit,
+            @Value("${protobuf.parse.limiter.min-limit:8}") int minLimit,
+            @Value("${protobuf.parse.limiter.max-limit:512}") int maxLimit) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !PARSE_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            shed.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("SERVICE_UNAVAILABLE:parse overloaded");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("protobuf.parse.shed", shed, LongAdder::sum)
+                .description("Parse requests rejected with 503 by the adaptive limiter")
+                .register(registry);
+        Gauge.builder("protobuf.parse.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of the parse endpoints")
+                .register(registry);
+        Gauge.builder("protobuf.parse.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+    }
+}
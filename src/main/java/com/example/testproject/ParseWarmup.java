@@ -0,0 +1,145 @@
+package com.example.testproject;
+
+import com.example.testproject.AdvancedUserController.ParseMode;
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs synthetic User parse/serialize cycles until the JIT stops compiling, so the first real
+ * requests hit C2 compiled code. The cycles go through a {@link ProtobufDecoder} with the parser configured
+ * by {@code protobuf.parse.mode}, corrupt samples also through the error classification and response
+ * selection of {@link ControllerAdvice}. The decoder is a private instance, so warm-up errors do not show
+ * up in the protobuf.decode.errors metric.
+ * Spring Boot only switches readiness to ACCEPTING_TRAFFIC after all ApplicationRunners finished,
+ * so the readiness probe stays down for the whole warm-up.
+ */
+@Component
+public class ParseWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ParseWarmup.class);
+
+    private static final int CYCLES_PER_ROUND = 5_000;
+    // rounds in a row with (almost) no compilation before we call it stable
+    private static final int STABLE_ROUNDS = 3;
+    private static final long STABLE_COMPILATION_MILLIS = 5;
+    private static final String ERROR_ACCEPT = "application/x-protobuf, application/json;q=0.9";
+
+    private final boolean enabled;
+    private final Duration maxDuration;
+    private final ParseMode parseMode;
+    private final int maxSize;
+
+    public ParseWarmup(
+            @Value("${protobuf.warmup.enabled:true}") boolean enabled,
+            @Value("${protobuf.warmup.max-duration:10s}") Duration maxDuration,
+            @Value("${protobuf.parse.mode:standard}") ParseMode parseMode,
+            @Value("${protobuf.decode.max-size:1048576}") int maxSize) {
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.parseMode = parseMode;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Result result = warmUp(samplePayloads(), maxDuration, parseMode, new ProtobufDecoder(maxSize));
+        log.info("Protobuf parse warm-up ({}) finished: {} cycles in {} ms, compilation {}",
+                parseMode, result.cycles(), result.elapsed().toMillis(), result.stable() ? "stable" : "still running");
+    }
+
+    record Result(long cycles, Duration elapsed, boolean stable) {
+    }
+
+    static Result warmUp(List<byte[]> payloads, Duration maxDuration, ParseMode parseMode, ProtobufDecoder decoder) {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean monitored = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long lastCompilationMillis = monitored ? compilation.getTotalCompilationTime() : 0;
+        long cycles = 0;
+        long blackhole = 0;
+        int stableRounds = 0;
+
+        while (stableRounds < STABLE_ROUNDS && System.nanoTime() < deadline) {
+            for (int i = 0; i < CYCLES_PER_ROUND; i++) {
+                blackhole += cycle(payloads.get(i % payloads.size()), parseMode, decoder);
+            }
+            cycles += CYCLES_PER_ROUND;
+
+            if (monitored) {
+                long compilationMillis = compilation.getTotalCompilationTime();
+                stableRounds = compilationMillis - lastCompilationMillis <= STABLE_COMPILATION_MILLIS
+                        ? stableRounds + 1 : 0;
+                lastCompilationMillis = compilationMillis;
+            }
+        }
+        if (blackhole == 42) {
+            log.trace("unreachable, keeps the warm-up loop from being optimized away");
+        }
+        return new Result(cycles, Duration.ofNanos(System.nanoTime() - start), stableRounds >= STABLE_ROUNDS);
+    }
+
+    private static long cycle(byte[] payload, ParseMode parseMode, ProtobufDecoder decoder) {
+        try {
+            if (parseMode == ParseMode.LAZY_UTF8) {
+                // what the lazy parse endpoints touch: the id and the decoded name
+                LazyUser user = decoder.decode(payload, LazyUser::parse);
+                return user.getId() + user.getName().toString().length();
+            }
+            User user = decoder.decode(payload, User.parser());
+            return user.getId() + user.getName().length() + user.toByteArray().length;
+        } catch (ProtobufDecodeException e) {
+            // corrupt samples warm up the error path of the parse endpoints
+            byte[] body = ControllerAdvice.prefersProtobuf(ERROR_ACCEPT) ? e.getProtobufBody() : e.getJsonBody();
+            return e.getCode().getNumber() + body.length;
+        }
+    }
+
+    /**
+     * Every oneof branch and every Gender value, plus an unknown enum value and a truncated payload.
+     */
+    static List<byte[]> samplePayloads() {
+        List<byte[]> payloads = new ArrayList<>();
+        long id = 1;
+        for (Gender gender : Gender.values()) {
+            if (gender == Gender.UNRECOGNIZED) {
+                continue;
+            }
+            User.Builder base = User.newBuilder()
+                    .setId(id++)
+                    .setName("Warmup " + gender)
+                    .addTags("vip")
+                    .addTags("beta")
+                    .setNickname("warm")
+                    .setGender(gender)
+                    .setContact(ContactInfo.newBuilder().setAddress("Jahrom").setZip("74188"));
+
+            payloads.add(base.clone().build().toByteArray());
+            payloads.add(base.clone().setEmailLogin("warmup@example.com").build().toByteArray());
+            payloads.add(base.clone()
+                    .setPhoneLogin(PhoneNumber.newBuilder().setCountry("IR").setNumber("+989100000000"))
+                    .build().toByteArray());
+        }
+        payloads.add(User.newBuilder().setId(id).setGenderValue(99).build().toByteArray());
+
+        byte[] full = payloads.get(payloads.size() - 2);
+        payloads.add(Arrays.copyOf(full, full.length - 1));
+        return payloads;
+    }
+}
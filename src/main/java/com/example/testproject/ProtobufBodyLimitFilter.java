@@ -0,0 +1,152 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Enforces {@code protobuf.decode.max-size} on protobuf request bodies while they are read, so an
+ * oversized body is never buffered: a declared Content-Length over the limit fails on the first read,
+ * a chunked body as soon as it crosses the limit.
+ * <p>
+ * The failure is the SIZE_LIMIT {@link ProtobufDecodeException}, thrown from the body stream while the
+ * controller argument is resolved, so {@link ControllerAdvice} answers 413 like for any decode error.
+ */
+@Component
+public class ProtobufBodyLimitFilter extends OncePerRequestFilter {
+
+    private static final MediaType PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    private final ProtobufDecoder protobufDecoder;
+
+    public ProtobufBodyLimitFilter(ProtobufDecoder protobufDecoder) {
+        this.protobufDecoder = protobufDecoder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return true;
+        }
+        try {
+            return !PROTOBUF.includes(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return true;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new LimitedBodyRequest(request), response);
+    }
+
+    private final class LimitedBodyRequest extends HttpServletRequestWrapper {
+
+        private ServletInputStream body;
+
+        LimitedBodyRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new LimitedInputStream(super.getInputStream(), getContentLengthLong());
+            }
+            return body;
+        }
+    }
+
+    private final class LimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream in;
+        private final long declaredLength;
+        private long read;
+        private boolean rejected;
+
+        LimitedInputStream(ServletInputStream in, long declaredLength) {
+            this.in = in;
+            this.declaredLength = declaredLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkBefore();
+            int b = in.read();
+            if (b >= 0) {
+                checkAfter(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkBefore();
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                checkAfter(n);
+            }
+            return n;
+        }
+
+        private void checkBefore() {
+            if (rejected || declaredLength > protobufDecoder.getMaxSize()) {
+                throw reject();
+            }
+        }
+
+        private void checkAfter(int n) {
+            read += n;
+            if (read > protobufDecoder.getMaxSize()) {
+                throw reject();
+            }
+        }
+
+        // counted once per request, however often the caller retries reading
+        private ProtobufDecodeException reject() {
+            if (rejected) {
+                return ProtobufDecodeException.of(ErrorCode.SIZE_LIMIT);
+            }
+            rejected = true;
+            return protobufDecoder.sizeLimitExceeded();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return in.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            in.setReadListener(readListener);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
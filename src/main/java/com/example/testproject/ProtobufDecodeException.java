@@ -0,0 +1,77 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.error.ErrorProto.Error;
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A request body that is not valid protobuf.
+ * <p>
+ * Bad payloads are cheap to send, so this exception is built to be cheap to throw: there is one
+ * preallocated instance per {@link ErrorCode}, it has no stack trace, and both response bodies
+ * (protobuf {@link Error} and JSON) are encoded up front.
+ */
+public final class ProtobufDecodeException extends RuntimeException {
+
+    private static final Map<ErrorCode, ProtobufDecodeException> INSTANCES = new EnumMap<>(ErrorCode.class);
+
+    static {
+        register(ErrorCode.TRUNCATED, HttpStatus.BAD_REQUEST, "Invalid protobuf: truncated message");
+        register(ErrorCode.INVALID_WIRE_TYPE, HttpStatus.BAD_REQUEST, "Invalid protobuf: invalid wire type");
+        register(ErrorCode.INVALID_UTF8, HttpStatus.BAD_REQUEST, "Invalid protobuf: invalid UTF-8 in string field");
+        register(ErrorCode.SIZE_LIMIT, HttpStatus.PAYLOAD_TOO_LARGE, "Invalid protobuf: message too large");
+        register(ErrorCode.MALFORMED, HttpStatus.BAD_REQUEST, "Invalid protobuf: malformed message");
+    }
+
+    private final ErrorCode code;
+    private final HttpStatus status;
+    private final byte[] protobufBody;
+    private final byte[] jsonBody;
+
+    private ProtobufDecodeException(ErrorCode code, HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.code = code;
+        this.status = status;
+        this.protobufBody = Error.newBuilder().setCode(code).setMessage(message).build().toByteArray();
+        this.jsonBody = ("{\"code\":\"" + code.name() + "\",\"message\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void register(ErrorCode code, HttpStatus status, String message) {
+        INSTANCES.put(code, new ProtobufDecodeException(code, status, message));
+    }
+
+    public static ProtobufDecodeException of(ErrorCode code) {
+        ProtobufDecodeException exception = INSTANCES.get(code);
+        if (exception == null) {
+            throw new IllegalArgumentException("No decode error for " + code);
+        }
+        return exception;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Serialized {@link Error}, shared, do not modify.
+     */
+    public byte[] getProtobufBody() {
+        return protobufBody;
+    }
+
+    /**
+     * UTF-8 JSON body, shared, do not modify.
+     */
+    public byte[] getJsonBody() {
+        return jsonBody;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Parser;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parses request bodies and turns every failure into a preallocated {@link ProtobufDecodeException},
+ * counted per {@link ErrorCode}.
+ * <p>
+ * HTTP bodies over {@code protobuf.decode.max-size} are already rejected while they are read, by
+ * {@link ProtobufBodyLimitFilter}; the size check here covers bodies that arrive by other means.
+ */
+@Component
+public class ProtobufDecoder implements MeterBinder {
+
+    // InvalidProtocolBufferException has no code, only its (constant) message tells the failures apart
+    private static final String TRUNCATED_PREFIX = "While parsing a protocol message, the input ended unexpectedly";
+    private static final String INVALID_UTF8_MESSAGE = "Protocol message had invalid UTF-8.";
+    private static final String SIZE_LIMIT_PREFIX = "Protocol message was too large.";
+
+    private final int maxSize;
+    private final LongAdder[] errors;
+
+    public ProtobufDecoder(@Value("${protobuf.decode.max-size:1048576}") int maxSize) {
+        this.maxSize = maxSize;
+        ErrorCode[] codes = ErrorCode.values();
+        this.errors = new LongAdder[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Parses a body by other means than a generated {@link Parser}, e.g. {@link LazyUser#parse}.
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(byte[] body) throws InvalidProtocolBufferException;
+    }
+
+    public <T> T decode(byte[] body, Parser<T> parser) {
+        return decode(body, (BodyParser<T>) parser::parseFrom);
+    }
+
+    public <T> T decode(byte[] body, BodyParser<T> parser) {
+        if (body.length > maxSize) {
+            throw fail(ErrorCode.SIZE_LIMIT);
+        }
+        try {
+            return parser.parse(body);
+        } catch (InvalidProtocolBufferException e) {
+            throw fail(classify(e));
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Counts a body rejected for its size before it was read.
+     */
+    public ProtobufDecodeException sizeLimitExceeded() {
+        return fail(ErrorCode.SIZE_LIMIT);
+    }
+
+    static ErrorCode classify(InvalidProtocolBufferException e) {
+        if (e instanceof InvalidProtocolBufferException.InvalidWireTypeException) {
+            return ErrorCode.INVALID_WIRE_TYPE;
+        }
+        String message = e.getMessage();
+        if (message == null) {
+            return ErrorCode.MALFORMED;
+        }
+        if (message.startsWith(TRUNCATED_PREFIX)) {
+            return ErrorCode.TRUNCATED;
+        }
+        if (message.equals(INVALID_UTF8_MESSAGE)) {
+            return ErrorCode.INVALID_UTF8;
+        }
+        if (message.startsWith(SIZE_LIMIT_PREFIX)) {
+            return ErrorCode.SIZE_LIMIT;
+        }
+        return ErrorCode.MALFORMED;
+    }
+
+    private ProtobufDecodeException fail(ErrorCode code) {
+        errors[code.ordinal()].increment();
+        return ProtobufDecodeException.of(code);
+    }
+
+    long errorCount(ErrorCode code) {
+        return errors[code.ordinal()].sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ErrorCode code : ErrorCode.values()) {
+            if (code == ErrorCode.ERROR_CODE_UNSPECIFIED || code == ErrorCode.UNRECOGNIZED) {
+                continue;
+            }
+            FunctionCounter.builder("protobuf.decode.errors", errors[code.ordinal()], LongAdder::sum)
+                    .description("Request bodies rejected as invalid protobuf")
+                    .tag("code", code.name())
+                    .register(registry);
+        }
+    }
+}
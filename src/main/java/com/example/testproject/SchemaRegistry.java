@@ -0,0 +1,251 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.UserApiProto;
+import com.example.testproject.proto.advanced.AdvancedUserProto;
+import com.example.testproject.proto.error.ErrorProto;
+import com.example.testproject.proto.versioning.VersioningProto;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Message types known at runtime, loaded from {@code FileDescriptorSet}s instead of generated classes.
+ * <p>
+ * On startup it loads the set the build writes to {@code classpath:schemas/} plus every {@code *.desc}
+ * file in {@code protobuf.schemas.dir}. More sets can be registered while running, so a new schema
+ * version only needs its descriptor set, not a rebuild. A registered type is never replaced: a set that
+ * redefines a known file or message type is rejected as a whole, so a new version needs a new name
+ * (e.g. its own package). At most {@code protobuf.schemas.max-types} message types are kept.
+ * <p>
+ * Files that are identical to one compiled into the application are served by the generated classes,
+ * every other type is handled as {@code DynamicMessage} without any speedup.
+ */
+@Component
+public class SchemaRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaRegistry.class);
+
+    private static final List<Message> COMPILED = List.of(
+            AdvancedUserProto.User.getDefaultInstance(),
+            AdvancedUserProto.PhoneNumber.getDefaultInstance(),
+            AdvancedUserProto.ContactInfo.getDefaultInstance(),
+            UserApiProto.User.getDefaultInstance(),
+            ErrorProto.Error.getDefaultInstance(),
+            VersioningProto.UserV1.getDefaultInstance(),
+            VersioningProto.UserV2.getDefaultInstance());
+
+    private final Map<String, Message> compiled = new HashMap<>();
+    private final Map<String, FileDescriptor> files = new ConcurrentHashMap<>();
+    private final Map<String, MessageSchema> messages = new ConcurrentHashMap<>();
+    private final int maxTypes;
+
+    public SchemaRegistry(
+            @Value("${protobuf.schemas.dir:}") String schemasDir,
+            @Value("${protobuf.schemas.max-types:1024}") int maxTypes) {
+        this.maxTypes = maxTypes;
+        for (Message prototype : COMPILED) {
+            compiled.put(prototype.getDescriptorForType().getFullName(), prototype);
+        }
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:schemas/*.desc")) {
+                try (InputStream in = resource.getInputStream()) {
+                    register(FileDescriptorSet.parseFrom(in));
+                }
+            }
+            if (!schemasDir.isBlank()) {
+                try (DirectoryStream<Path> sets = Files.newDirectoryStream(Path.of(schemasDir), "*.desc")) {
+                    for (Path set : sets) {
+                        try (InputStream in = Files.newInputStream(set)) {
+                            register(FileDescriptorSet.parseFrom(in));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Loading descriptor sets failed", e);
+        }
+        log.info("Schema registry loaded {} message types", messages.size());
+    }
+
+    /**
+     * Builds and registers every file of the set. Dependencies must be in the set or already registered.
+     * Files that are already registered with the same content are skipped.
+     *
+     * @return the full names of the newly registered message types
+     * @throws IllegalArgumentException if the set redefines a registered file or message type, has a dependency
+     *                                  cycle or would exceed the type limit; nothing is registered then
+     */
+    public synchronized Set<String> register(FileDescriptorSet set) {
+        Map<String, FileDescriptorProto> protos = new HashMap<>();
+        for (FileDescriptorProto proto : set.getFileList()) {
+            protos.put(proto.getName(), proto);
+        }
+        Map<String, FileDescriptor> built = new HashMap<>();
+        for (FileDescriptorProto proto : set.getFileList()) {
+            build(proto.getName(), protos, built, new LinkedHashSet<>());
+        }
+
+        List<FileDescriptor> added = new ArrayList<>();
+        Set<String> names = new TreeSet<>();
+        for (FileDescriptor file : built.values()) {
+            FileDescriptor existing = files.get(file.getName());
+            if (existing == file) {
+                continue;
+            }
+            if (existing != null) {
+                throw new IllegalArgumentException("File already registered with different content: " + file.getName());
+            }
+            for (Descriptor message : file.getMessageTypes()) {
+                collectNames(message, names);
+            }
+            added.add(file);
+        }
+        if (messages.size() + names.size() > maxTypes) {
+            throw new IllegalArgumentException("Schema registry is full: " + maxTypes + " message types");
+        }
+
+        Set<String> registered = new TreeSet<>();
+        for (FileDescriptor file : added) {
+            files.put(file.getName(), file);
+            for (Descriptor message : file.getMessageTypes()) {
+                registerMessage(message, registered);
+            }
+        }
+        return registered;
+    }
+
+    private void collectNames(Descriptor message, Set<String> names) {
+        String name = message.getFullName();
+        if (messages.containsKey(name) || !names.add(name)) {
+            throw new IllegalArgumentException("Message type already registered: " + name);
+        }
+        for (Descriptor nested : message.getNestedTypes()) {
+            collectNames(nested, names);
+        }
+    }
+
+    // inProgress holds the files on the current dependency path, in order
+    private FileDescriptor build(String name, Map<String, FileDescriptorProto> protos, Map<String, FileDescriptor> built,
+                                 Set<String> inProgress) {
+        FileDescriptor file = built.get(name);
+        if (file != null) {
+            return file;
+        }
+        FileDescriptorProto proto = protos.get(name);
+        if (proto == null) {
+            file = files.get(name);
+            if (file == null) {
+                throw new IllegalArgumentException("Unknown dependency: " + name);
+            }
+            return file;
+        }
+        file = compiledFile(proto);
+        if (file == null) {
+            // re-sent dependencies resolve to the registered file instead of a copy of it
+            FileDescriptor existing = files.get(name);
+            if (existing != null && withoutJsonNames(existing.toProto()).equals(withoutJsonNames(proto))) {
+                file = existing;
+            }
+        }
+        if (file != null) {
+            built.put(name, file);
+            return file;
+        }
+        if (!inProgress.add(name)) {
+            throw new IllegalArgumentException("Dependency cycle: " + String.join(" -> ", inProgress) + " -> " + name);
+        }
+        List<FileDescriptor> dependencies = new ArrayList<>();
+        for (String dependency : proto.getDependencyList()) {
+            dependencies.add(build(dependency, protos, built, inProgress));
+        }
+        inProgress.remove(name);
+        try {
+            file = FileDescriptor.buildFrom(proto, dependencies.toArray(new FileDescriptor[0]));
+        } catch (DescriptorValidationException e) {
+            throw new IllegalArgumentException("Invalid descriptor " + name + ": " + e.getMessage(), e);
+        }
+        built.put(name, file);
+        return file;
+    }
+
+    // the generated descriptor of an identical compiled file, if there is one
+    private FileDescriptor compiledFile(FileDescriptorProto proto) {
+        for (Message prototype : compiled.values()) {
+            FileDescriptor file = prototype.getDescriptorForType().getFile();
+            if (file.getName().equals(proto.getName())) {
+                return withoutJsonNames(file.toProto()).equals(withoutJsonNames(proto)) ? file : null;
+            }
+        }
+        return null;
+    }
+
+    // protoc fills in json_name for descriptor sets but leaves it out of the descriptors embedded in generated code
+    private static FileDescriptorProto withoutJsonNames(FileDescriptorProto proto) {
+        FileDescriptorProto.Builder builder = proto.toBuilder();
+        for (DescriptorProto.Builder message : builder.getMessageTypeBuilderList()) {
+            clearJsonNames(message);
+        }
+        return builder.build();
+    }
+
+    private static void clearJsonNames(DescriptorProto.Builder message) {
+        for (FieldDescriptorProto.Builder field : message.getFieldBuilderList()) {
+            field.clearJsonName();
+        }
+        for (DescriptorProto.Builder nested : message.getNestedTypeBuilderList()) {
+            clearJsonNames(nested);
+        }
+    }
+
+    private void registerMessage(Descriptor message, Set<String> registered) {
+        Message prototype = compiled.get(message.getFullName());
+        messages.put(message.getFullName(), prototype != null && prototype.getDescriptorForType() == message
+                ? new MessageSchema(prototype)
+                : new MessageSchema(message));
+        registered.add(message.getFullName());
+        for (Descriptor nested : message.getNestedTypes()) {
+            registerMessage(nested, registered);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if no such message type is registered
+     */
+    public MessageSchema get(String fullName) {
+        MessageSchema schema = messages.get(fullName);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown message type: " + fullName);
+        }
+        return schema;
+    }
+
+    public Set<String> messageTypes() {
+        return new TreeSet<>(messages.keySet());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves serialized users.
+ * Concurrent requests for the same id share one load and one serialization (single-flight),
+ * concurrent requests for different ids share one store lookup (micro-batching).
+ * <p>
+ * Serialization runs on its own bounded pool. When that is saturated, the loader thread completing the
+ * batch serializes itself, which slows the batcher down instead of queueing without bound.
+ */
+@Service
+public class UserLookupService implements DisposableBean {
+
+    static final int MAX_BATCH_IDS = 1000;
+
+    private final UserStore store;
+    private final UserMicroBatcher batcher;
+    private final SingleFlight<Long, byte[]> singleFlight = new SingleFlight<>();
+    private final ThreadPoolExecutor serializers;
+
+    public UserLookupService(
+            UserStore store,
+            UserMicroBatcher batcher,
+            @Value("${protobuf.users.serializer-threads:2}") int serializerThreads) {
+        this.store = store;
+        this.batcher = batcher;
+        this.serializers = new ThreadPoolExecutor(serializerThreads, serializerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(serializerThreads * 256), UserMicroBatcher.daemon("user-serializer"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public CompletableFuture<byte[]> getSerialized(long id) {
+        // async, so a batch of lookups is not serialized one after another on the loader thread that completed it
+        return singleFlight.get(id, key -> batcher.load(key).thenApplyAsync(User::toByteArray, serializers));
+    }
+
+    /**
+     * Length-delimited stream of users in the order of {@code ids},
+     * readable with {@code User.parseDelimitedFrom}.
+     */
+    public byte[] getAllDelimited(long[] ids) {
+        if (ids.length > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Too many ids: " + ids.length + " > " + MAX_BATCH_IDS);
+        }
+        User[] users = store.loadAll(ids);
+        int size = 0;
+        for (User user : users) {
+            size += user.getSerializedSize();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 5 * users.length);
+        try {
+            for (User user : users) {
+                user.writeDelimitedTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void destroy() {
+        serializers.shutdown();
+    }
+}
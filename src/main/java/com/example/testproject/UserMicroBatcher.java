@@ -0,0 +1,140 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges single user lookups arriving within a small window into one {@link UserStore#loadAll} call.
+ * The first lookup of a window schedules the flush, a full batch is flushed right away.
+ * <p>
+ * The timer thread only hands flushes to a bounded loader pool, the store calls and the completion of
+ * the lookup futures happen there. A flush drains everything queued when it starts, so when the pool's
+ * queue is full, one of the flushes waiting in it picks up the new lookups and the extra flush is dropped.
+ * <p>
+ * On shutdown every lookup that has not been loaded yet fails with an {@link IllegalStateException}
+ * instead of waiting forever.
+ */
+@Component
+public class UserMicroBatcher implements DisposableBean {
+
+    private record Pending(long id, CompletableFuture<User> future) {
+    }
+
+    private final UserStore store;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the queue, so the pending lookups are counted separately
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(daemon("user-micro-batcher"));
+    private final ThreadPoolExecutor loaders;
+    private volatile boolean closed;
+
+    public UserMicroBatcher(
+            UserStore store,
+            @Value("${protobuf.users.batch-window:200us}") Duration window,
+            @Value("${protobuf.users.max-batch-size:128}") int maxBatchSize,
+            @Value("${protobuf.users.loader-threads:4}") int loaderThreads) {
+        this.store = store;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.loaders = new ThreadPoolExecutor(loaderThreads, loaderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(loaderThreads * 16), daemon("user-batch-loader"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public CompletableFuture<User> load(long id) {
+        Pending pending = new Pending(id, new CompletableFuture<>());
+        queue.add(pending);
+        int size = queued.incrementAndGet();
+        try {
+            if (closed) {
+                failQueued();
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                timer.schedule(() -> loaders.execute(this::flush), windowNanos, TimeUnit.NANOSECONDS);
+            } else if (size == maxBatchSize) {
+                // only the lookup that fills the batch triggers the early flush, not every one after it
+                loaders.execute(this::flush);
+            }
+        } catch (RejectedExecutionException e) {
+            // shut down between the closed check and scheduling
+            failQueued();
+        }
+        return pending.future();
+    }
+
+    private void failQueued() {
+        IllegalStateException shutdown = new IllegalStateException("User lookups are shutting down");
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            pending.future().completeExceptionally(shutdown);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        Pending[] batch = new Pending[maxBatchSize];
+        int size;
+        while ((size = drain(batch)) > 0) {
+            long[] ids = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = batch[i].id();
+            }
+            try {
+                User[] users = store.loadAll(ids);
+                for (int i = 0; i < size; i++) {
+                    batch[i].future().complete(users[i]);
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < size; i++) {
+                    batch[i].future().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private int drain(Pending[] batch) {
+        int size = 0;
+        Pending pending;
+        while (size < batch.length && (pending = queue.poll()) != null) {
+            batch[size++] = pending;
+        }
+        queued.addAndGet(-size);
+        return size;
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        timer.shutdownNow();
+        loaders.shutdownNow();
+        // a flush already running completes its own batch, everything still queued fails here
+        failQueued();
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory registry of {@link User} messages keyed by their primitive id.
+ * <p>
+ * Ids are spread over independent shards, each an open-addressing (linear probing) table behind its own
+ * {@link StampedLock}. Reads are optimistic and only fall back to the read lock when they race a writer,
+ * lookups neither box the id nor build a key string.
+ * <p>
+ * Every entry carries a version, 0 means absent. Versions are stamped from a per-shard counter, so they
+ * keep growing across remove and re-insert and a version seen before a removal never matches again.
+ * {@link #compareAndSet} only writes if the version still matches; read the user and the version it was
+ * stored with in one call with {@link #getVersioned}.
+ */
+public class UserRegistry {
+
+    private static final int DEFAULT_SHARDS = 64;
+    private static final int INITIAL_SHARD_CAPACITY = 16;
+
+    private final Shard[] shards;
+    private final int shardShift;
+
+    public UserRegistry() {
+        this(DEFAULT_SHARDS);
+    }
+
+    public UserRegistry(int shardCount) {
+        if (shardCount < 1 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("shardCount must be a power of two: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        // shards are picked by the high bits of the hash, slots by the low bits
+        shardShift = 64 - Integer.numberOfTrailingZeros(shardCount);
+    }
+
+    /**
+     * A user together with the version it was stored with.
+     */
+    public record Versioned(User user, long version) {
+    }
+
+    public User get(long id) {
+        long hash = hash(id);
+        return shard(hash).get(id, (int) hash);
+    }
+
+    /**
+     * The user and its version from the same snapshot, the base for a {@link #compareAndSet}.
+     *
+     * @return null if absent
+     */
+    public Versioned getVersioned(long id) {
+        long hash = hash(id);
+        return shard(hash).getVersioned(id, (int) hash);
+    }
+
+    /**
+     * @return the current version of the user, 0 if absent
+     */
+    public long version(long id) {
+        long hash = hash(id);
+        return shard(hash).version(id, (int) hash);
+    }
+
+    /**
+     * Inserts or replaces the user stored under its id.
+     *
+     * @return the new version
+     */
+    public long put(User user) {
+        long id = user.getId();
+        long hash = hash(id);
+        return shard(hash).put(id, (int) hash, user, -1);
+    }
+
+    /**
+     * Stores the user only if the current version equals {@code expectedVersion}
+     * (0 to insert only if absent).
+     *
+     * @return true if the user was stored
+     */
+    public boolean compareAndSet(long expectedVersion, User user) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("expectedVersion must not be negative: " + expectedVersion);
+        }
+        long id = user.getId();
+        long hash = hash(id);
+        return shard(hash).put(id, (int) hash, user, expectedVersion) > 0;
+    }
+
+    public User remove(long id) {
+        long hash = hash(id);
+        return shard(hash).remove(id, (int) hash);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Shard shard(long hash) {
+        return shards.length == 1 ? shards[0] : shards[(int) (hash >>> shardShift)];
+    }
+
+    // murmur3 finalizer, sequential ids must not end up in neighbouring slots
+    private static long hash(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Arrays are swapped as a whole on resize, so an optimistic reader always sees
+     * keys, users and versions of the same length.
+     */
+    private static final class Table {
+        final long[] keys;
+        final User[] users;
+        final long[] versions;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            users = new User[capacity];
+            versions = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        // slot of the id, or the empty slot ending its probe sequence (encoded as -slot - 1)
+        int find(long id, int hash) {
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                if (users[slot] == null) {
+                    return -slot - 1;
+                }
+                if (keys[slot] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // only reachable by an optimistic reader racing a writer, validation discards it
+            return -1;
+        }
+    }
+
+    private static final class Shard {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_SHARD_CAPACITY);
+        private int size;
+        // last version handed out, only written under the write lock
+        private long clock;
+
+        User get(long id, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            User user = lookup(table, id, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    user = lookup(table, id, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return user;
+        }
+
+        private static User lookup(Table table, long id, int hash) {
+            int slot = table.find(id, hash);
+            return slot >= 0 ? table.users[slot] : null;
+        }
+
+        Versioned getVersioned(long id, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            Versioned versioned = lookupVersioned(table, id, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    versioned = lookupVersioned(table, id, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return versioned;
+        }
+
+        private static Versioned lookupVersioned(Table table, long id, int hash) {
+            int slot = table.find(id, hash);
+            if (slot < 0) {
+                return null;
+            }
+            // an optimistic read may see a slot being written, validation discards it
+            User user = table.users[slot];
+            return user != null ? new Versioned(user, table.versions[slot]) : null;
+        }
+
+        long version(long id, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            long version = lookupVersion(table, id, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    version = lookupVersion(table, id, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return version;
+        }
+
+        private static long lookupVersion(Table table, long id, int hash) {
+            int slot = table.find(id, hash);
+            return slot >= 0 ? table.versions[slot] : 0;
+        }
+
+        /**
+         * @param expectedVersion -1 to write unconditionally
+         * @return the new version, or 0 if the expected version did not match
+         */
+        long put(long id, int hash, User user, long expectedVersion) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = t.find(id, hash);
+                long current = slot >= 0 ? t.versions[slot] : 0;
+                if (expectedVersion >= 0 && expectedVersion != current) {
+                    return 0;
+                }
+                if (slot < 0) {
+                    if (size + 1 > (t.mask + 1) >> 1) {
+                        t = resize();
+                        slot = t.find(id, hash);
+                    }
+                    slot = -slot - 1;
+                    t.keys[slot] = id;
+                    size++;
+                }
+                long version = ++clock;
+                t.users[slot] = user;
+                t.versions[slot] = version;
+                return version;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        User remove(long id, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = t.find(id, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                User removed = t.users[slot];
+                shiftBack(t, slot);
+                size--;
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // backward shift deletion keeps probe sequences intact without tombstones
+        private static void shiftBack(Table t, int hole) {
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & t.mask;
+                if (t.users[slot] == null) {
+                    break;
+                }
+                int home = (int) hash(t.keys[slot]) & t.mask;
+                // move the entry into the hole unless its home lies cyclically in (hole, slot]
+                boolean homeBetween = hole <= slot
+                        ? hole < home && home <= slot
+                        : hole < home || home <= slot;
+                if (!homeBetween) {
+                    t.keys[hole] = t.keys[slot];
+                    t.users[hole] = t.users[slot];
+                    t.versions[hole] = t.versions[slot];
+                    hole = slot;
+                }
+            }
+            t.keys[hole] = 0;
+            t.users[hole] = null;
+            t.versions[hole] = 0;
+        }
+
+        private Table resize() {
+            Table old = table;
+            Table grown = new Table((old.mask + 1) << 1);
+            for (int i = 0; i <= old.mask; i++) {
+                User user = old.users[i];
+                if (user != null) {
+                    int slot = -grown.find(old.keys[i], (int) hash(old.keys[i])) - 1;
+                    grown.keys[slot] = old.keys[i];
+                    grown.users[slot] = user;
+                    grown.versions[slot] = old.versions[i];
+                }
+            }
+            table = grown;
+            return grown;
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
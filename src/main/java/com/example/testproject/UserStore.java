@@ -0,0 +1,32 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import org.springframework.stereotype.Component;
+
+/**
+ * Source of the users served by {@link AdvancedUserController}.
+ * Users are synthesized from their id, a real store would do one round trip per call.
+ */
+@Component
+public class UserStore {
+
+    public User load(long id) {
+        return User.newBuilder()
+                .setId(id)
+                .setName("User " + id)
+                .setGender(Gender.MALE)
+                .addTags("vip")
+                .build();
+    }
+
+    /**
+     * One lookup for many ids, result is aligned with {@code ids}.
+     */
+    public User[] loadAll(long[] ids) {
+        User[] users = new User[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            users[i] = load(ids[i]);
+        }
+        return users;
+    }
+}
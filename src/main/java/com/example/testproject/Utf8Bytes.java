@@ -0,0 +1,158 @@
+package com.example.testproject;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Validated UTF-8 string field that is only decoded to a {@link String} on first {@link #toString()}.
+ * <p>
+ * It is a view into the request body, no bytes are copied, so the body must not be modified afterwards.
+ * {@link #equals}, {@link #hashCode} and {@link #contentEquals} work on the bytes, which is all
+ * index and cache lookups need.
+ */
+public final class Utf8Bytes {
+
+    public static final Utf8Bytes EMPTY = new Utf8Bytes(new byte[0], 0, 0, true);
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private final boolean ascii;
+    private String string;
+    private int hash;
+
+    private Utf8Bytes(byte[] bytes, int offset, int length, boolean ascii) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.ascii = ascii;
+    }
+
+    /**
+     * @throws InvalidProtocolBufferException if the bytes are not valid UTF-8
+     */
+    public static Utf8Bytes validate(byte[] bytes, int offset, int length) throws InvalidProtocolBufferException {
+        if (length == 0) {
+            return EMPTY;
+        }
+        int nonAscii = firstNonAscii(bytes, offset, length);
+        if (nonAscii < 0) {
+            return new Utf8Bytes(bytes, offset, length, true);
+        }
+        // everything before is ASCII, so a multi-byte sequence starts right here
+        int end = offset + length;
+        if (!UnsafeByteOperations.unsafeWrap(bytes, nonAscii, end - nonAscii).isValidUtf8()) {
+            throw new InvalidProtocolBufferException("Protocol message had invalid UTF-8.");
+        }
+        return new Utf8Bytes(bytes, offset, length, false);
+    }
+
+    /**
+     * ASCII check 8 bytes at a time (SWAR): a word is pure ASCII if none of its bytes has the high bit set.
+     *
+     * @return index of the first non-ASCII byte, -1 if there is none
+     */
+    static int firstNonAscii(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long word = (long) LONGS.get(bytes, i);
+            long high = word & HIGH_BITS;
+            if (high != 0) {
+                return i + (Long.numberOfTrailingZeros(high) >>> 3);
+            }
+        }
+        for (; i < end; i++) {
+            if (bytes[i] < 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @return number of UTF-8 bytes
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Zero-copy ByteString over the same bytes.
+     */
+    public ByteString toByteString() {
+        return UnsafeByteOperations.unsafeWrap(bytes, offset, length);
+    }
+
+    /**
+     * Compares without decoding when the bytes are ASCII.
+     */
+    public boolean contentEquals(String other) {
+        if (string != null) {
+            return string.equals(other);
+        }
+        if (!ascii) {
+            return toString().equals(other);
+        }
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (other.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        String decoded = string;
+        if (decoded == null) {
+            // ISO-8859-1 maps ASCII bytes 1:1 and is the cheapest decoder for compact strings
+            decoded = new String(bytes, offset, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            string = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Utf8Bytes other
+                && Arrays.equals(bytes, offset, offset + length, other.bytes, other.offset, other.offset + other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            h = 1;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                h = 31 * h + bytes[i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+}
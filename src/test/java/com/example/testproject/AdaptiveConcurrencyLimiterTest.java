@@ -0,0 +1,77 @@
+package com.example.testproject;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * requests above the limit are rejected until a permit is released
+     */
+    @Test
+    public void rejectsAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release(MILLIS);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    /**
+     * stable latency under load grows the limit, climbing latency shrinks it
+     */
+    @Test
+    public void limitFollowsLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+
+        for (int i = 0; i < 200; i++) {
+            saturate(limiter, MILLIS);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        for (int i = 0; i < 10; i++) {
+            saturate(limiter, 20 * MILLIS);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(2);
+    }
+
+    /**
+     * an idle limiter does not grow the limit
+     */
+    @Test
+    public void idleSamplesKeepLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(MILLIS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void invalidBounds() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(1, 2, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // take every permit, then release them all with the same latency
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos);
+        }
+    }
+}
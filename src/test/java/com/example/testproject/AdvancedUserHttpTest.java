@@ -1,21 +1,30 @@
 package com.example.testproject;
 
 import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import com.example.testproject.proto.error.ErrorProto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @WebMvcTest(controllers = {AdvancedUserController.class})
+@Import({UserLookupService.class, UserMicroBatcher.class, UserStore.class, ProtobufDecoder.class})
 public class AdvancedUserHttpTest {
 
     private MockMvc mockMvc;
 
+    @Autowired
+    private ProtobufDecoder protobufDecoder;
+
     @Autowired
     public void setMockMvc(MockMvc mockMvc) {
         this.mockMvc = mockMvc;
@@ -26,8 +35,11 @@ public class AdvancedUserHttpTest {
      */
     @Test
     public void controllerReturnsProtobuf() throws Exception {
-        var result = mockMvc.perform(
+        var started = mockMvc.perform(
                         get("/advanced/users/123").accept("application/x-protobuf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var result = mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/x-protobuf"))
                 .andReturn();
@@ -39,6 +51,24 @@ public class AdvancedUserHttpTest {
         assertThat(user.getName()).isEqualTo("User 123");
     }
 
+    /**
+     * Multi-get returns a length-delimited stream in request order
+     */
+    @Test
+    public void controllerReturnsDelimitedUsers() throws Exception {
+        var result = mockMvc.perform(
+                        get("/advanced/users").param("ids", "3,1,3").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn();
+
+        var in = new ByteArrayInputStream(result.getResponse().getContentAsByteArray());
+        assertThat(User.parseDelimitedFrom(in).getId()).isEqualTo(3);
+        assertThat(User.parseDelimitedFrom(in).getId()).isEqualTo(1);
+        assertThat(User.parseDelimitedFrom(in).getName()).isEqualTo("User 3");
+        assertThat(User.parseDelimitedFrom(in)).isNull();
+    }
+
     /**
      * Receiving protobuf in requests
      */
@@ -86,4 +116,74 @@ public class AdvancedUserHttpTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string(org.hamcrest.CoreMatchers.containsString("Invalid protobuf")));
     }
+
+    /**
+     * Decode errors as protobuf Error when the client accepts protobuf
+     */
+    @Test
+    public void truncatedProtobufReturnsErrorMessage() throws Exception {
+        byte[] bytes = User.newBuilder().setId(1).setName("Mahmood").build().toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        var result = mockMvc.perform(
+                        post("/advanced/users/parse")
+                                .contentType("application/x-protobuf")
+                                .accept("application/x-protobuf")
+                                .content(truncated))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn();
+
+        ErrorProto.Error error = ErrorProto.Error.parseFrom(result.getResponse().getContentAsByteArray());
+        assertThat(error.getCode()).isEqualTo(ErrorProto.ErrorCode.TRUNCATED);
+    }
+
+    /**
+     * Decode errors as JSON otherwise
+     */
+    @Test
+    public void invalidUtf8ReturnsJsonError() throws Exception {
+        byte[] badName = new byte[]{0x12, 0x01, (byte) 0xFF};
+        mockMvc.perform(
+                        post("/advanced/users/parse-safe")
+                                .contentType("application/x-protobuf")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(badName))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value("INVALID_UTF8"));
+    }
+
+    /**
+     * a q=0 protobuf entry does not win over JSON
+     */
+    @Test
+    public void excludedProtobufAcceptGetsJsonError() throws Exception {
+        mockMvc.perform(
+                        post("/advanced/users/parse")
+                                .contentType("application/x-protobuf")
+                                .header("Accept", "application/json, application/x-protobuf;q=0")
+                                .content(new byte[]{0x12, 0x01, (byte) 0xFF}))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value("INVALID_UTF8"));
+    }
+
+    /**
+     * bodies over protobuf.decode.max-size are rejected with 413 before they are read
+     */
+    @Test
+    public void oversizedBodyReturns413() throws Exception {
+        long before = protobufDecoder.errorCount(ErrorProto.ErrorCode.SIZE_LIMIT);
+
+        mockMvc.perform(
+                        post("/advanced/users/parse")
+                                .contentType("application/x-protobuf")
+                                .accept("application/x-protobuf")
+                                .content(new byte[protobufDecoder.getMaxSize() + 1]))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(content().contentType("application/x-protobuf"));
+
+        assertThat(protobufDecoder.errorCount(ErrorProto.ErrorCode.SIZE_LIMIT)).isEqualTo(before + 1);
+    }
 }
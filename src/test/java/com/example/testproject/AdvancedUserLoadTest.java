@@ -0,0 +1,292 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives all /advanced/users endpoints over real sockets at a constant arrival rate and writes
+ * HdrHistogram reports, so builds and execution modes can be compared on the same numbers.
+ * <p>
+ * By default the application is started on a random port inside the test JVM, where it competes with the
+ * generator for CPU and GC. To measure a packaged build or other JVM flags, start it separately and point
+ * the test at it with loadtest.baseUrl.
+ * <p>
+ * Excluded from {@code mvn test}, run it with {@code mvn -Ploadtest test}. Options (system properties):
+ * <ul>
+ *     <li>loadtest.baseUrl: server to drive, e.g. http://localhost:8080 (none: start the app in this JVM)</li>
+ *     <li>loadtest.rate: requests per second (500)</li>
+ *     <li>loadtest.duration / loadtest.warmup: measured run and discarded warm-up (10s / 5s)</li>
+ *     <li>loadtest.concurrency: max requests in flight (64)</li>
+ *     <li>loadtest.mix: scenario weights, e.g. get=30,json=10,batch=10,parse=30,parseSafe=10,corrupt=10</li>
+ *     <li>loadtest.tags: tag counts of the parse payloads (0,8,64)</li>
+ *     <li>loadtest.label: name of the run in the output files (default)</li>
+ *     <li>loadtest.output: report directory (target/loadtest)</li>
+ * </ul>
+ * For the in-JVM server, application properties can be overridden the same way,
+ * e.g. -Dprotobuf.parse.mode=lazy-utf8.
+ */
+@Tag("loadtest")
+public class AdvancedUserLoadTest {
+
+    private static final String PROTOBUF = "application/x-protobuf";
+    private static final String DEFAULT_MIX = "get=30,json=10,batch=10,parse=30,parseSafe=10,corrupt=10";
+
+    private static ServletWebServerApplicationContext application;
+    private static String baseUrl;
+
+    @BeforeAll
+    public static void startServer() {
+        String external = System.getProperty("loadtest.baseUrl", "");
+        if (!external.isBlank()) {
+            baseUrl = external.endsWith("/") ? external.substring(0, external.length() - 1) : external;
+            return;
+        }
+        application = (ServletWebServerApplicationContext) SpringApplication.run(
+                TestProjectApplication.class, "--server.port=0");
+        baseUrl = "http://localhost:" + application.getWebServer().getPort();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        if (application != null) {
+            application.close();
+        }
+    }
+
+    private void log(String title, Object value) {
+        System.out.println("[" + title + "] " + value);
+    }
+
+    @Test
+    public void constantArrivalRateAcrossAllEndpoints() throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 500);
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "10s"));
+        Duration warmup = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "5s"));
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        String label = System.getProperty("loadtest.label", "default");
+        Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<OpenModelLoadGenerator.Scenario> scenarios = scenarios(
+                System.getProperty("loadtest.mix", DEFAULT_MIX),
+                parseTagCounts(System.getProperty("loadtest.tags", "0,8,64")));
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator(client, scenarios, rate, concurrency);
+
+        log("Load test", label + " against " + baseUrl + ": " + rate + " req/s for " + duration.toSeconds()
+                + "s, max " + concurrency + " in flight, warm-up " + warmup.toSeconds() + "s");
+        if (!warmup.isZero()) {
+            generator.run(warmup);
+        }
+        long startMillis = System.currentTimeMillis();
+        Map<String, OpenModelLoadGenerator.Stats> stats = generator.run(duration);
+        long endMillis = System.currentTimeMillis();
+
+        report(stats, label, output, startMillis, endMillis);
+
+        long requests = stats.values().stream().mapToLong(OpenModelLoadGenerator.Stats::getTotal).sum();
+        assertThat(requests).isPositive();
+        stats.forEach((name, s) -> {
+            assertThat(s.getFailed()).as(name + " transport errors").isZero();
+            assertThat(s.getUnexpected()).as(name + " unexpected status codes").isZero();
+        });
+    }
+
+    // ---------- scenarios ----------
+
+    private List<OpenModelLoadGenerator.Scenario> scenarios(String mix, int[] tagCounts) {
+        ZipfianIds ids = new ZipfianIds(10_000, 1.1);
+        List<byte[]> valid = validPayloads(tagCounts);
+        List<byte[]> corrupt = corruptPayloads(valid);
+        IntPredicate ok = status -> status == 200;
+        IntPredicate badRequest = status -> status == 400;
+
+        Map<String, Supplier<HttpRequest>> requests = new LinkedHashMap<>();
+        Map<String, IntPredicate> expected = new LinkedHashMap<>();
+        requests.put("get", () -> get("/advanced/users/" + ids.next(), PROTOBUF));
+        expected.put("get", ok);
+        requests.put("json", () -> get("/advanced/users/" + ids.next() + "/json", "application/json"));
+        expected.put("json", ok);
+        requests.put("batch", () -> get("/advanced/users?ids=" + LongStream.range(0, 16)
+                .mapToObj(i -> Long.toString(ids.next()))
+                .collect(Collectors.joining(",")), PROTOBUF));
+        expected.put("batch", ok);
+        requests.put("parse", () -> post("/advanced/users/parse", pick(valid)));
+        expected.put("parse", ok);
+        requests.put("parseSafe", () -> post("/advanced/users/parse-safe", pick(valid)));
+        expected.put("parseSafe", ok);
+        requests.put("corrupt", () -> post(ThreadLocalRandom.current().nextBoolean()
+                ? "/advanced/users/parse" : "/advanced/users/parse-safe", pick(corrupt)));
+        expected.put("corrupt", badRequest);
+
+        List<OpenModelLoadGenerator.Scenario> scenarios = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || !requests.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry '" + entry
+                        + "', expected name=weight with name in " + requests.keySet());
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                scenarios.add(new OpenModelLoadGenerator.Scenario(
+                        parts[0], weight, requests.get(parts[0]), expected.get(parts[0])));
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * every tag count combined with every login oneof branch
+     */
+    static List<byte[]> validPayloads(int[] tagCounts) {
+        List<byte[]> payloads = new ArrayList<>();
+        long id = 1;
+        for (int tagCount : tagCounts) {
+            for (User.LoginMethodCase login : User.LoginMethodCase.values()) {
+                User.Builder builder = User.newBuilder()
+                        .setId(id)
+                        .setName("Load User " + id)
+                        .setNickname("load")
+                        .setGender(Gender.MALE)
+                        .setContact(ContactInfo.newBuilder().setAddress("Jahrom, Fars").setZip("74188"));
+                for (int i = 0; i < tagCount; i++) {
+                    builder.addTags("tag-" + i);
+                }
+                switch (login) {
+                    case EMAIL_LOGIN -> builder.setEmailLogin("load" + id + "@example.com");
+                    case PHONE_LOGIN -> builder.setPhoneLogin(
+                            PhoneNumber.newBuilder().setCountry("+98").setNumber("9120000" + id));
+                    default -> {
+                    }
+                }
+                payloads.add(builder.build().toByteArray());
+                id++;
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * truncated bodies, invalid UTF-8 in name and an invalid wire type
+     */
+    static List<byte[]> corruptPayloads(List<byte[]> valid) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (byte[] payload : valid) {
+            payloads.add(Arrays.copyOf(payload, payload.length - 3));
+        }
+        payloads.add(new byte[]{0x08, 0x01, 0x12, 0x02, (byte) 0xC3, 0x28});
+        payloads.add(new byte[]{0x08, 0x01, 0x0F, 0x01});
+        return payloads;
+    }
+
+    private static int[] parseTagCounts(String tags) {
+        return Arrays.stream(tags.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static byte[] pick(List<byte[]> payloads) {
+        return payloads.get(ThreadLocalRandom.current().nextInt(payloads.size()));
+    }
+
+    private HttpRequest get(String path, String accept) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", accept).GET().build();
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", PROTOBUF)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    // ---------- reporting ----------
+
+    private void report(Map<String, OpenModelLoadGenerator.Stats> stats, String label, Path output,
+                        long startMillis, long endMillis) throws IOException {
+        Files.createDirectories(output);
+        try (PrintStream hlog = new PrintStream(Files.newOutputStream(output.resolve(label + ".hlog")))) {
+            HistogramLogWriter writer = new HistogramLogWriter(hlog);
+            writer.outputComment("[" + label + "] latency from intended start (corrected) and service time"
+                    + " of expected responses, latency of shed (503) responses, in us");
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputLegend();
+
+            log("Latency (ms, from intended start, expected responses)", String.format(
+                    "%-10s %8s %8s %8s %8s %8s %8s %6s %6s",
+                    "scenario", "ok", "p50", "p90", "p99", "p99.9", "max", "shed", "bad"));
+            for (Map.Entry<String, OpenModelLoadGenerator.Stats> entry : stats.entrySet()) {
+                String name = entry.getKey();
+                OpenModelLoadGenerator.Stats s = entry.getValue();
+                writeHistogram(writer, s.getLatency(), name, startMillis, endMillis);
+                writeHistogram(writer, s.getServiceTime(), name + ".service", startMillis, endMillis);
+                writePercentiles(output.resolve(label + "-" + name + ".hgrm"), s.getLatency());
+                writePercentiles(output.resolve(label + "-" + name + ".service.hgrm"), s.getServiceTime());
+                if (s.getShed() > 0) {
+                    writeHistogram(writer, s.getShedLatency(), name + ".shed", startMillis, endMillis);
+                    writePercentiles(output.resolve(label + "-" + name + ".shed.hgrm"), s.getShedLatency());
+                }
+
+                Histogram h = s.getLatency();
+                log(label, String.format("%-10s %8d %8.2f %8.2f %8.2f %8.2f %8.2f %6d %6d",
+                        name, h.getTotalCount(), ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9),
+                        h.getMaxValue() / 1000.0, s.getShed(), s.getUnexpected() + s.getFailed()));
+            }
+        }
+        log("Reports", output.toAbsolutePath());
+    }
+
+    private static void writeHistogram(HistogramLogWriter writer, Histogram histogram, String tag,
+                                       long startMillis, long endMillis) {
+        histogram.setTag(tag);
+        histogram.setStartTimeStamp(startMillis);
+        histogram.setEndTimeStamp(endMillis);
+        writer.outputIntervalHistogram(histogram);
+    }
+
+    private static void writePercentiles(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            // values are recorded in us, the report is in ms
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.testproject;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ControllerAdviceTest {
+
+    /**
+     * decode errors follow the client's Accept preferences, not just the presence of protobuf
+     */
+    @Test
+    public void errorBodyFollowsAcceptPreference() {
+        assertThat(ControllerAdvice.prefersProtobuf("application/x-protobuf")).isTrue();
+        assertThat(ControllerAdvice.prefersProtobuf("application/x-protobuf, application/json;q=0.5")).isTrue();
+        assertThat(ControllerAdvice.prefersProtobuf("*/*;q=0.1, application/x-protobuf")).isTrue();
+        assertThat(ControllerAdvice.prefersProtobuf("application/json;q=0.5, application/x-protobuf;q=0.9")).isTrue();
+
+        assertThat(ControllerAdvice.prefersProtobuf("application/json, application/x-protobuf;q=0")).isFalse();
+        assertThat(ControllerAdvice.prefersProtobuf("application/x-protobuf;q=0.2, application/json")).isFalse();
+        assertThat(ControllerAdvice.prefersProtobuf("*/*")).isFalse();
+        assertThat(ControllerAdvice.prefersProtobuf(null)).isFalse();
+        assertThat(ControllerAdvice.prefersProtobuf("not a media type")).isFalse();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bad payload throughput: the former parse-safe path (wrap in IllegalArgumentException, build the
+ * message string) against {@link ProtobufDecoder} with its preallocated, preencoded errors.
+ * protobuf-java still creates an InvalidProtocolBufferException with a stack trace for each failure,
+ * that part is the same in both.
+ * <p>
+ * mvn -Pbench test-compile exec:exec -Dbench.args=DecodeErrorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeErrorBenchmark {
+
+    @Param({"truncated", "wireType", "utf8", "tooLarge"})
+    public String payload;
+
+    private byte[] body;
+    private ProtobufDecoder decoder;
+    private ControllerAdvice advice;
+
+    @Setup
+    public void setUp() {
+        byte[] valid = User.newBuilder().setId(1).setName("Mahmood").addTags("vip").build().toByteArray();
+        body = switch (payload) {
+            case "truncated" -> Arrays.copyOf(valid, valid.length - 1);
+            case "wireType" -> new byte[]{0x08, 0x01, 0x0F};
+            case "utf8" -> new byte[]{0x12, 0x01, (byte) 0xFF};
+            case "tooLarge" -> new byte[2048];
+            default -> throw new IllegalArgumentException(payload);
+        };
+        decoder = new ProtobufDecoder(1024);
+        advice = new ControllerAdvice();
+    }
+
+    @Benchmark
+    public Object wrappedException() {
+        try {
+            try {
+                return User.parseFrom(body);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid protobuf", e);
+            }
+        } catch (IllegalArgumentException e) {
+            return advice.handleIllegalArgumentException(e);
+        }
+    }
+
+    @Benchmark
+    public Object preallocatedException() {
+        try {
+            return decoder.decode(body, User.parser());
+        } catch (ProtobufDecodeException e) {
+            return e.getJsonBody();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated User against DynamicMessage, and against {@link SchemaRegistry} which uses the generated
+ * parser when the loaded descriptor matches the compiled one.
+ * <p>
+ * parseRuntimeOnly parses the same bytes as a type that only exists at runtime (advanced_user.proto moved
+ * to another package). buildRuntimeOnly only fills a DynamicMessage builder with the already decoded
+ * values: it is the lower bound of any parser producing a DynamicMessage, however its reading is done.
+ * <p>
+ * mvn -Pbench test-compile exec:exec -Dbench.args=DynamicMessageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicMessageBenchmark {
+
+    private byte[] payload;
+    private User generated;
+    private MessageSchema registered;
+    private MessageSchema runtimeOnly;
+    private Map.Entry<FieldDescriptor, Object>[] runtimeOnlyFields;
+    private MessageSchema schema;
+    private Message dynamic;
+    private FieldDescriptor nameField;
+
+    @Setup
+    public void setUp() throws InvalidProtocolBufferException {
+        generated = User.newBuilder()
+                .setId(42)
+                .setName("Mahmood Saneian")
+                .addTags("vip")
+                .addTags("beta")
+                .addTags("tester")
+                .setNickname("Mahmood")
+                .setGender(Gender.MALE)
+                .setContact(ContactInfo.newBuilder().setAddress("Jahrom").setZip("74188"))
+                .setEmailLogin("mahmoodsaneian1@gmail.com")
+                .build();
+        payload = generated.toByteArray();
+        SchemaRegistry registry = new SchemaRegistry("", 1024);
+        registered = registry.get("advanced.User");
+        registry.register(SchemaRegistryTest.runtimeUserSet());
+        runtimeOnly = registry.get("runtime.advanced.User");
+        @SuppressWarnings("unchecked")
+        Map.Entry<FieldDescriptor, Object>[] fields = runtimeOnly.parse(payload).getAllFields().entrySet()
+                .toArray(new Map.Entry[0]);
+        runtimeOnlyFields = fields;
+        schema = new MessageSchema(User.getDescriptor());
+        dynamic = schema.parse(payload);
+        nameField = schema.field("name");
+    }
+
+    @Benchmark
+    public User parseGenerated() throws InvalidProtocolBufferException {
+        return User.parseFrom(payload);
+    }
+
+    @Benchmark
+    public Message parseDynamic() throws InvalidProtocolBufferException {
+        return schema.parse(payload);
+    }
+
+    @Benchmark
+    public Message parseRegistered() throws InvalidProtocolBufferException {
+        return registered.parse(payload);
+    }
+
+    @Benchmark
+    public Message parseRuntimeOnly() throws InvalidProtocolBufferException {
+        return runtimeOnly.parse(payload);
+    }
+
+    @Benchmark
+    public Message buildRuntimeOnly() {
+        Message.Builder builder = runtimeOnly.newBuilder();
+        for (Map.Entry<FieldDescriptor, Object> field : runtimeOnlyFields) {
+            builder.setField(field.getKey(), field.getValue());
+        }
+        return builder.buildPartial();
+    }
+
+    @Benchmark
+    public byte[] serializeGenerated() {
+        return generated.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeDynamic() {
+        return schema.serialize(dynamic);
+    }
+
+    @Benchmark
+    public Object fieldGenerated() {
+        return generated.getName();
+    }
+
+    // resolved once by the caller
+    @Benchmark
+    public Object fieldDynamicResolved() {
+        return dynamic.getField(nameField);
+    }
+
+    // looked up by name on every access
+    @Benchmark
+    public Object fieldDynamicDescriptorSearch() {
+        return dynamic.getField(dynamic.getDescriptorForType().findFieldByName("name"));
+    }
+}
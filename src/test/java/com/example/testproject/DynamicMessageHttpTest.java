@@ -0,0 +1,115 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.versioning.VersioningProto.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = {DynamicMessageController.class}, properties = "protobuf.schemas.runtime-registration=true")
+@Import({SchemaRegistry.class, ProtobufDecoder.class})
+public class DynamicMessageHttpTest {
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    public void setMockMvc(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * protobuf -> JSON, type picked by header
+     */
+    @Test
+    public void parseRoutesByHeader() throws Exception {
+        UserV2 user = UserV2.newBuilder()
+                .setId(4)
+                .setName("RoundTrip")
+                .setGender(GenderV2.OTHER_V2)
+                .build();
+
+        // same bytes, two schema versions
+        mockMvc.perform(post("/dynamic/messages/parse")
+                        .header("X-Proto-Message", "versioning.UserV2")
+                        .contentType("application/x-protobuf")
+                        .content(user.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"gender\":\"OTHER_V2\"")));
+
+        mockMvc.perform(post("/dynamic/messages/parse")
+                        .header("X-Proto-Message", "versioning.UserV1")
+                        .contentType("application/x-protobuf")
+                        .content(user.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"gender\":3")));
+    }
+
+    /**
+     * JSON -> protobuf
+     */
+    @Test
+    public void serializeRoutesByHeader() throws Exception {
+        var result = mockMvc.perform(post("/dynamic/messages/serialize")
+                        .header("X-Proto-Message", "versioning.UserV2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":9,\"name\":\"Json\",\"nickname\":\"J\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn();
+
+        UserV2 user = UserV2.parseFrom(result.getResponse().getContentAsByteArray());
+        assertThat(user.getId()).isEqualTo(9);
+        assertThat(user.getNickname()).isEqualTo("J");
+    }
+
+    /**
+     * new schema version without rebuilding
+     */
+    @Test
+    public void registerSchemaThenUseIt() throws Exception {
+        mockMvc.perform(post("/dynamic/schemas")
+                        .contentType("application/x-protobuf")
+                        .content(SchemaRegistryTest.userV3Set().toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[\"runtime.UserV3\"]"));
+
+        mockMvc.perform(post("/dynamic/messages/serialize")
+                        .header("X-Proto-Message", "runtime.UserV3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"team\":\"core\"}"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * an uploaded set cannot change how a known type is decoded
+     */
+    @Test
+    public void redefiningRegisteredTypeReturns400() throws Exception {
+        var redefined = SchemaRegistryTest.userV3Set().toBuilder();
+        redefined.getFileBuilder(0).setName("hijack/user_v1.proto").setPackage("versioning")
+                .getMessageTypeBuilder(0).setName("UserV1");
+
+        mockMvc.perform(post("/dynamic/schemas")
+                        .contentType("application/x-protobuf")
+                        .content(redefined.build().toByteArray()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Message type already registered: versioning.UserV1")));
+    }
+
+    @Test
+    public void unknownMessageTypeReturns400() throws Exception {
+        mockMvc.perform(post("/dynamic/messages/parse")
+                        .header("X-Proto-Message", "nope.User")
+                        .contentType("application/x-protobuf")
+                        .content(UserV1.newBuilder().setId(1).build().toByteArray()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Unknown message type")));
+    }
+}
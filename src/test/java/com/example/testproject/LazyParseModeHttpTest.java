@@ -0,0 +1,61 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = {AdvancedUserController.class}, properties = "protobuf.parse.mode=lazy-utf8")
+@Import({UserLookupService.class, UserMicroBatcher.class, UserStore.class, ProtobufDecoder.class})
+public class LazyParseModeHttpTest {
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    public void setMockMvc(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * same responses as the standard mode
+     */
+    @Test
+    public void parseWithLazyStrings() throws Exception {
+        User user = User.newBuilder()
+                .setId(555)
+                .setName("محمود")
+                .addTags("vip")
+                .build();
+
+        mockMvc.perform(
+                        post("/advanced/users/parse")
+                                .contentType("application/x-protobuf")
+                                .content(user.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("OK:555:محمود"));
+
+        mockMvc.perform(
+                        post("/advanced/users/parse-safe")
+                                .contentType("application/x-protobuf")
+                                .content(user.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("OK : 555"));
+    }
+
+    @Test
+    public void invalidUtf8StillRejected() throws Exception {
+        mockMvc.perform(
+                        post("/advanced/users/parse-safe")
+                                .contentType("application/x-protobuf")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new byte[]{0x12, 0x01, (byte) 0xFF}))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_UTF8"));
+    }
+}
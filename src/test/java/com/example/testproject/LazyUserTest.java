@@ -0,0 +1,175 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.EnumDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LazyUserTest {
+
+    private static User fullUser() {
+        return User.newBuilder()
+                .setId(42)
+                .setName("محمود Saneian")
+                .addTags("vip")
+                .addTags("بتا")
+                .setNickname("")
+                .setGender(Gender.FEMALE)
+                .setContact(ContactInfo.newBuilder().setAddress("Jahrom, Fars").setZip("74188"))
+                .setPhoneLogin(PhoneNumber.newBuilder().setCountry("IR").setNumber("+989188688513"))
+                .build();
+    }
+
+    /**
+     * every field of advanced.User, set on its own (nested messages fully filled), survives the lazy
+     * parse; a field added to or renumbered in advanced_user.proto fails here instead of being dropped
+     */
+    @Test
+    public void handlesEveryFieldOfTheDescriptor() throws Exception {
+        for (FieldDescriptor field : User.getDescriptor().getFields()) {
+            User.Builder builder = User.newBuilder();
+            setSample(builder, field);
+            User user = builder.build();
+
+            assertThat(LazyUser.parse(user.toByteArray()).toUser())
+                    .as("field %s (%d)", field.getName(), field.getNumber())
+                    .isEqualTo(user);
+        }
+    }
+
+    private static void setSample(Message.Builder builder, FieldDescriptor field) {
+        if (field.isRepeated()) {
+            builder.addRepeatedField(field, sample(builder, field));
+            builder.addRepeatedField(field, sample(builder, field));
+        } else {
+            builder.setField(field, sample(builder, field));
+        }
+    }
+
+    // a non-default value, so it is actually written to the wire
+    private static Object sample(Message.Builder builder, FieldDescriptor field) {
+        return switch (field.getJavaType()) {
+            case INT -> 7;
+            case LONG -> 7L;
+            case FLOAT -> 1.5f;
+            case DOUBLE -> 1.5d;
+            case BOOLEAN -> true;
+            case STRING -> "v" + field.getNumber();
+            case BYTE_STRING -> ByteString.copyFromUtf8("b" + field.getNumber());
+            case ENUM -> {
+                EnumDescriptor type = field.getEnumType();
+                yield type.getValues().get(type.getValues().size() - 1);
+            }
+            case MESSAGE -> {
+                Message.Builder nested = builder.newBuilderForField(field);
+                for (FieldDescriptor nestedField : nested.getDescriptorForType().getFields()) {
+                    setSample(nested, nestedField);
+                }
+                yield nested.build();
+            }
+        };
+    }
+
+    /**
+     * lazy view decodes to the same message as User.parseFrom
+     */
+    @Test
+    public void matchesStandardParsing() throws Exception {
+        User user = fullUser();
+        LazyUser lazy = LazyUser.parse(user.toByteArray());
+
+        assertThat(lazy.getId()).isEqualTo(42);
+        assertThat(lazy.getName().isAscii()).isFalse();
+        assertThat(lazy.getTags().get(0).isAscii()).isTrue();
+        assertThat(lazy.hasNickname()).isTrue();
+        assertThat(lazy.getGender()).isEqualTo(Gender.FEMALE);
+        assertThat(lazy.getLoginMethodCase()).isEqualTo(User.LoginMethodCase.PHONE_LOGIN);
+        assertThat(lazy.getEmailLogin().isEmpty()).isTrue();
+        assertThat(lazy.toUser()).isEqualTo(user);
+
+        User email = User.newBuilder().setId(1).setEmailLogin("a@b.c").setGenderValue(99).build();
+        LazyUser lazyEmail = LazyUser.parse(email.toByteArray());
+        assertThat(lazyEmail.getGender()).isEqualTo(Gender.UNRECOGNIZED);
+        assertThat(lazyEmail.hasContact()).isFalse();
+        assertThat(lazyEmail.toUser()).isEqualTo(email);
+    }
+
+    /**
+     * same failures as the generated parser
+     */
+    @Test
+    public void rejectsWhatUserParseFromRejects() {
+        byte[] bytes = fullUser().toByteArray();
+
+        assertThatThrownBy(() -> LazyUser.parse(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(InvalidProtocolBufferException.class);
+        assertThatThrownBy(() -> LazyUser.parse(new byte[]{0x12, 0x01, (byte) 0xFF}))
+                .hasMessage("Protocol message had invalid UTF-8.");
+        // invalid byte behind a run of ASCII, found by the word-at-a-time scan
+        byte[] tagBytes = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        byte[] badTag = new byte[tagBytes.length + 3];
+        badTag[0] = 0x1A;
+        badTag[1] = (byte) (tagBytes.length + 1);
+        System.arraycopy(tagBytes, 0, badTag, 2, tagBytes.length);
+        badTag[badTag.length - 1] = (byte) 0xC3;
+        assertThatThrownBy(() -> LazyUser.parse(badTag))
+                .isInstanceOf(InvalidProtocolBufferException.class);
+    }
+
+    /**
+     * unknown fields (newer writer) are skipped
+     */
+    @Test
+    public void skipsUnknownFields() throws Exception {
+        User user = User.newBuilder()
+                .setId(5)
+                .setName("Next")
+                .setUnknownFields(com.google.protobuf.UnknownFieldSet.newBuilder()
+                        .addField(20, com.google.protobuf.UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+                        .build())
+                .build();
+        LazyUser lazy = LazyUser.parse(user.toByteArray());
+        assertThat(lazy.getId()).isEqualTo(5);
+        assertThat(lazy.getName().toString()).isEqualTo("Next");
+    }
+
+    /**
+     * byte level comparison and hashing for lookups
+     */
+    @Test
+    public void utf8BytesCompareOnBytes() throws Exception {
+        byte[] a = "xx vip".getBytes(StandardCharsets.UTF_8);
+        byte[] b = "vip".getBytes(StandardCharsets.UTF_8);
+        Utf8Bytes first = Utf8Bytes.validate(a, 3, 3);
+        Utf8Bytes second = Utf8Bytes.validate(b, 0, 3);
+
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first.contentEquals("vip")).isTrue();
+        assertThat(first.contentEquals("vi")).isFalse();
+        assertThat(first.toByteString().toStringUtf8()).isEqualTo("vip");
+
+        Map<Utf8Bytes, String> index = new HashMap<>();
+        index.put(first, "found");
+        assertThat(index.get(second)).isEqualTo("found");
+
+        byte[] persian = "سلام".getBytes(StandardCharsets.UTF_8);
+        Utf8Bytes mixed = Utf8Bytes.validate(persian, 0, persian.length);
+        assertThat(mixed.isAscii()).isFalse();
+        assertThat(mixed.contentEquals("سلام")).isTrue();
+        assertThat(mixed.toString()).isEqualTo("سلام");
+
+        assertThat(Utf8Bytes.firstNonAscii("abcdefghé".getBytes(StandardCharsets.UTF_8), 0, 10)).isEqualTo(8);
+        assertThat(Utf8Bytes.firstNonAscii("abcdefghij".getBytes(StandardCharsets.UTF_8), 0, 10)).isEqualTo(-1);
+    }
+}
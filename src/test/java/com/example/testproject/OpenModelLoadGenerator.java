@@ -0,0 +1,172 @@
+package com.example.testproject;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Open-model (constant arrival rate) HTTP load generator.
+ * <p>
+ * Requests are scheduled at fixed intended start times regardless of how fast earlier ones complete.
+ * Latency is measured from the intended start, so when the server (or the in-flight limit) stalls the
+ * generator, the queueing delay shows up in the histogram instead of being silently skipped
+ * (coordinated omission). The service time, measured from the actual send, is recorded separately.
+ * <p>
+ * Only responses with the scenario's expected status go into those histograms. Shed (503) responses are
+ * usually much faster than real work, so they are kept apart: otherwise a build that sheds more would
+ * look faster. Unexpected statuses and transport failures are only counted.
+ */
+public class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    /**
+     * One kind of request in the mix.
+     */
+    public record Scenario(String name, int weight, Supplier<HttpRequest> requests, IntPredicate expectedStatus) {
+    }
+
+    /**
+     * Histograms and counters of one scenario, latencies in microseconds.
+     */
+    public static final class Stats {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram shedLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder unexpected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public Histogram getServiceTime() {
+            return serviceTime;
+        }
+
+        /**
+         * Latency of the 503 responses, from intended start.
+         */
+        public Histogram getShedLatency() {
+            return shedLatency;
+        }
+
+        public long getShed() {
+            return shedLatency.getTotalCount();
+        }
+
+        /**
+         * All requests sent, whatever their outcome.
+         */
+        public long getTotal() {
+            return latency.getTotalCount() + getShed() + getUnexpected() + getFailed();
+        }
+
+        public long getUnexpected() {
+            return unexpected.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+    }
+
+    private final HttpClient client;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final int ratePerSecond;
+    private final int maxInFlight;
+
+    public OpenModelLoadGenerator(HttpClient client, List<Scenario> scenarios, int ratePerSecond, int maxInFlight) {
+        if (scenarios.isEmpty() || ratePerSecond < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Need scenarios, a positive rate and a positive in-flight limit");
+        }
+        this.client = client;
+        this.scenarios = scenarios;
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Runs the mix at the configured rate and waits for all requests to finish.
+     *
+     * @return stats per scenario name, in mix order
+     */
+    public Map<String, Stats> run(Duration duration) throws InterruptedException {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (Scenario scenario : scenarios) {
+            stats.put(scenario.name(), new Stats());
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = pick();
+            Stats scenarioStats = stats.get(scenario.name());
+            HttpRequest request = scenario.requests().get();
+
+            // a full in-flight window delays this send, the latency from `intended` still counts it
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long done = System.nanoTime();
+                        if (error != null) {
+                            scenarioStats.failed.increment();
+                        } else if (response.statusCode() == 503) {
+                            scenarioStats.shedLatency.recordValue(micros(done - intended));
+                        } else if (!scenario.expectedStatus().test(response.statusCode())) {
+                            scenarioStats.unexpected.increment();
+                        } else {
+                            scenarioStats.latency.recordValue(micros(done - intended));
+                            scenarioStats.serviceTime.recordValue(micros(done - sent));
+                        }
+                        inFlight.release();
+                    });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Requests still in flight a minute after the run ended");
+        }
+        return stats;
+    }
+
+    private Scenario pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, nanos / 1_000));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.testproject;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParseLoadSheddingFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static MockHttpServletRequest parseRequest(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    /**
+     * with the only permit held, the next parse request is shed with 503 and Retry-After
+     */
+    @Test
+    public void shedsAtLimit() throws Exception {
+        ParseLoadSheddingFilter filter = new ParseLoadSheddingFilter(1, 1, 1);
+        filter.bindTo(registry);
+        MockHttpServletResponse shedResponse = new MockHttpServletResponse();
+        double[] inFlightWhileHeld = new double[1];
+
+        // the outer request holds the permit while the inner one arrives
+        FilterChain holdPermit = (request, response) -> {
+            inFlightWhileHeld[0] = gauge("protobuf.parse.in-flight");
+            filter.doFilter(parseRequest("/advanced/users/parse-safe"), shedResponse, (req, res) -> {
+                throw new AssertionError("shed request must not reach the controller");
+            });
+        };
+        MockHttpServletResponse heldResponse = new MockHttpServletResponse();
+        filter.doFilter(parseRequest("/advanced/users/parse"), heldResponse, holdPermit);
+
+        assertThat(heldResponse.getStatus()).isEqualTo(200);
+        assertThat(shedResponse.getStatus()).isEqualTo(503);
+        assertThat(shedResponse.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(shedResponse.getContentAsString()).isEqualTo("SERVICE_UNAVAILABLE:parse overloaded");
+
+        assertThat(inFlightWhileHeld[0]).isEqualTo(1);
+        assertThat(registry.get("protobuf.parse.shed").functionCounter().count()).isEqualTo(1);
+        assertThat(gauge("protobuf.parse.limit")).isEqualTo(1);
+        assertThat(gauge("protobuf.parse.in-flight")).isZero();
+    }
+
+    /**
+     * other endpoints pass through even when the parse limit is exhausted
+     */
+    @Test
+    public void ignoresOtherPaths() throws Exception {
+        ParseLoadSheddingFilter filter = new ParseLoadSheddingFilter(1, 1, 1);
+        filter.bindTo(registry);
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+
+        filter.doFilter(parseRequest("/advanced/users/parse"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(
+                        new MockHttpServletRequest("GET", "/advanced/users/1"), getResponse, (req, res) -> {
+                        }));
+
+        assertThat(getResponse.getStatus()).isEqualTo(200);
+        assertThat(registry.get("protobuf.parse.shed").functionCounter().count()).isZero();
+    }
+}
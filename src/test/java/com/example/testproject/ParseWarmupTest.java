@@ -0,0 +1,60 @@
+package com.example.testproject;
+
+import com.example.testproject.AdvancedUserController.ParseMode;
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParseWarmupTest {
+
+    private final ProtobufDecoder decoder = new ProtobufDecoder(1024 * 1024);
+
+    private void log(String title, Object value) {
+        System.out.println("[" + title + "] " + value);
+    }
+
+    /**
+     * warm-up covers all payload shapes, including the corrupt one
+     */
+    @Test
+    public void samplePayloadsCoverAllShapes() {
+        // 4 genders x 3 login branches + unknown enum + truncated
+        assertThat(ParseWarmup.samplePayloads()).hasSize(14);
+    }
+
+    /**
+     * the loop ends once compilation is stable or at the deadline, whichever comes first
+     */
+    @Test
+    public void warmUpStopsWhenStableOrAtDeadline() {
+        List<byte[]> payloads = ParseWarmup.samplePayloads();
+        Duration maxDuration = Duration.ofMillis(300);
+
+        ParseWarmup.Result result = ParseWarmup.warmUp(payloads, maxDuration, ParseMode.STANDARD, decoder);
+        log("warm-up", result);
+
+        assertThat(result.cycles()).isPositive();
+        // one round of cycles may still run after the deadline passed
+        assertThat(result.elapsed()).isLessThanOrEqualTo(maxDuration.plusMillis(500));
+        if (!result.stable()) {
+            assertThat(result.elapsed()).isGreaterThanOrEqualTo(maxDuration);
+        }
+    }
+
+    /**
+     * lazy-utf8 mode warms LazyUser.parse, corrupt samples included
+     */
+    @Test
+    public void warmUpRunsConfiguredParser() {
+        ParseWarmup.Result result = ParseWarmup.warmUp(
+                ParseWarmup.samplePayloads(), Duration.ofMillis(200), ParseMode.LAZY_UTF8, decoder);
+        log("lazy warm-up", result);
+        assertThat(result.cycles()).isPositive();
+        // the truncated sample went through the decoder's classification
+        assertThat(decoder.errorCount(ErrorCode.TRUNCATED)).isPositive();
+    }
+}
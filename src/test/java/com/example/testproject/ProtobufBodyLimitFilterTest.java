@@ -0,0 +1,63 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProtobufBodyLimitFilterTest {
+
+    private final ProtobufDecoder decoder = new ProtobufDecoder(16);
+    private final ProtobufBodyLimitFilter filter = new ProtobufBodyLimitFilter(decoder);
+
+    private static MockHttpServletRequest request(byte[] body, boolean chunked) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/advanced/users/parse") {
+            @Override
+            public long getContentLengthLong() {
+                return chunked ? -1 : super.getContentLengthLong();
+            }
+        };
+        request.setContentType("application/x-protobuf");
+        request.setContent(body);
+        return request;
+    }
+
+    /**
+     * a chunked body (no Content-Length) fails once it crosses the limit, not after it was buffered
+     */
+    @Test
+    public void chunkedBodyFailsAtLimit() throws Exception {
+        int[] readBeforeFailure = new int[1];
+        filter.doFilter(request(new byte[64], true), new MockHttpServletResponse(), (req, res) -> {
+            var in = req.getInputStream();
+            assertThatThrownBy(() -> {
+                while (in.read() >= 0) {
+                    readBeforeFailure[0]++;
+                }
+            }).isSameAs(ProtobufDecodeException.of(ErrorCode.SIZE_LIMIT));
+        });
+
+        assertThat(readBeforeFailure[0]).isEqualTo(16);
+        assertThat(decoder.errorCount(ErrorCode.SIZE_LIMIT)).isEqualTo(1);
+    }
+
+    /**
+     * bodies within the limit and other content types pass unchanged
+     */
+    @Test
+    public void passesSmallAndNonProtobufBodies() throws Exception {
+        filter.doFilter(request(new byte[16], false), new MockHttpServletResponse(),
+                (req, res) -> assertThat(req.getInputStream().readAllBytes()).hasSize(16));
+
+        MockHttpServletRequest json = new MockHttpServletRequest("POST", "/dynamic/messages/serialize");
+        json.setContentType("application/json");
+        json.setContent(new byte[64]);
+        filter.doFilter(json, new MockHttpServletResponse(),
+                (req, res) -> assertThat(req.getInputStream().readAllBytes()).hasSize(64));
+
+        assertThat(decoder.errorCount(ErrorCode.SIZE_LIMIT)).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import com.example.testproject.proto.error.ErrorProto.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class ProtobufDecoderTest {
+
+    private final ProtobufDecoder decoder = new ProtobufDecoder(64);
+
+    private ProtobufDecodeException decodeFailure(byte[] body) {
+        return catchThrowableOfType(() -> decoder.decode(body, User.parser()), ProtobufDecodeException.class);
+    }
+
+    /**
+     * every kind of bad payload gets its own code
+     */
+    @Test
+    public void classifiesFailures() {
+        byte[] valid = User.newBuilder().setId(1).setName("Mahmood").build().toByteArray();
+
+        assertThat(decodeFailure(Arrays.copyOf(valid, valid.length - 1)).getCode())
+                .isEqualTo(ErrorCode.TRUNCATED);
+        // field 1 with wire type 7
+        assertThat(decodeFailure(new byte[]{0x0F}).getCode())
+                .isEqualTo(ErrorCode.INVALID_WIRE_TYPE);
+        // name = 0xFF
+        assertThat(decodeFailure(new byte[]{0x12, 0x01, (byte) 0xFF}).getCode())
+                .isEqualTo(ErrorCode.INVALID_UTF8);
+        assertThat(decodeFailure(new byte[65]).getCode())
+                .isEqualTo(ErrorCode.SIZE_LIMIT);
+        // tag zero
+        assertThat(decodeFailure(new byte[]{1, 2, 3, 4}).getCode())
+                .isEqualTo(ErrorCode.MALFORMED);
+
+        assertThat(decoder.errorCount(ErrorCode.TRUNCATED)).isEqualTo(1);
+        assertThat(decoder.errorCount(ErrorCode.SIZE_LIMIT)).isEqualTo(1);
+        assertThat(decoder.decode(valid, User.parser()).getName()).isEqualTo("Mahmood");
+    }
+
+    /**
+     * preallocated and stackless
+     */
+    @Test
+    public void exceptionsAreShared() {
+        ProtobufDecodeException first = decodeFailure(new byte[]{0x0F});
+        ProtobufDecodeException second = decodeFailure(new byte[]{0x0F});
+
+        assertThat(first).isSameAs(second).isSameAs(ProtobufDecodeException.of(ErrorCode.INVALID_WIRE_TYPE));
+        assertThat(first.getStackTrace()).isEmpty();
+        assertThat(new String(first.getJsonBody())).contains("\"code\":\"INVALID_WIRE_TYPE\"");
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.testproject;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Default configuration: schemas can be listed but not registered over HTTP.
+ */
+@WebMvcTest(controllers = {DynamicMessageController.class})
+@Import({SchemaRegistry.class, ProtobufDecoder.class})
+public class SchemaRegistrationDisabledHttpTest {
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    public void setMockMvc(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    @Test
+    public void registrationIsForbiddenByDefault() throws Exception {
+        mockMvc.perform(post("/dynamic/schemas")
+                        .contentType("application/x-protobuf")
+                        .content(SchemaRegistryTest.userV3Set().toByteArray()))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/dynamic/schemas"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto;
+import com.example.testproject.proto.versioning.VersioningProto;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SchemaRegistryTest {
+
+    private final SchemaRegistry registry = new SchemaRegistry("", 1024);
+
+    static FileDescriptorSet userV3Set() {
+        DescriptorProto userV3 = DescriptorProto.newBuilder()
+                .setName("UserV3")
+                .addField(field("id", 1, FieldDescriptorProto.Type.TYPE_INT64))
+                .addField(field("name", 2, FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("team", 5, FieldDescriptorProto.Type.TYPE_STRING))
+                .build();
+        return FileDescriptorSet.newBuilder()
+                .addFile(FileDescriptorProto.newBuilder()
+                        .setName("runtime/user_v3.proto")
+                        .setPackage("runtime")
+                        .setSyntax("proto3")
+                        .addMessageType(userV3))
+                .build();
+    }
+
+    /**
+     * advanced_user.proto moved to package runtime.advanced: the same wire format as the generated User,
+     * but a type that only exists at runtime
+     */
+    static FileDescriptorSet runtimeUserSet() {
+        FileDescriptorProto.Builder file = AdvancedUserProto.getDescriptor().toProto().toBuilder()
+                .setName("runtime/advanced_user.proto")
+                .setPackage("runtime.advanced");
+        for (DescriptorProto.Builder message : file.getMessageTypeBuilderList()) {
+            for (FieldDescriptorProto.Builder field : message.getFieldBuilderList()) {
+                if (field.hasTypeName()) {
+                    field.setTypeName(field.getTypeName().replace(".advanced.", ".runtime.advanced."));
+                }
+            }
+        }
+        return FileDescriptorSet.newBuilder().addFile(file).build();
+    }
+
+    private static FieldDescriptorProto field(String name, int number, FieldDescriptorProto.Type type) {
+        return FieldDescriptorProto.newBuilder().setName(name).setNumber(number).setType(type).build();
+    }
+
+    /**
+     * the descriptor set written by the build contains every .proto of the project
+     */
+    @Test
+    public void loadsBuildDescriptorSet() {
+        assertThat(registry.messageTypes()).contains(
+                "advanced.User", "advanced.PhoneNumber", "advanced.ContactInfo",
+                "userapi.User", "versioning.UserV1", "versioning.UserV2");
+        assertThatThrownBy(() -> registry.get("nope.User")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * DynamicMessage reads the same bytes as the generated class
+     */
+    @Test
+    public void dynamicParseMatchesGenerated() throws Exception {
+        assertThat(registry.get("advanced.User").isCompiled()).isTrue();
+
+        AdvancedUserProto.User user = AdvancedUserProto.User.newBuilder()
+                .setId(7)
+                .setName("Mahmood")
+                .addTags("vip")
+                .setGender(AdvancedUserProto.Gender.FEMALE)
+                .setPhoneLogin(AdvancedUserProto.PhoneNumber.newBuilder().setNumber("+98"))
+                .build();
+
+        MessageSchema schema = new MessageSchema(AdvancedUserProto.User.getDescriptor());
+        assertThat(schema.isCompiled()).isFalse();
+        Message dynamic = schema.parse(user.toByteArray());
+        assertThat(dynamic).isInstanceOf(DynamicMessage.class);
+
+        assertThat(dynamic.getField(schema.field("name"))).isEqualTo("Mahmood");
+        assertThat(dynamic.getField(schema.field(1))).isEqualTo(7L);
+        assertThat(schema.field(8).getMessageType().getFullName()).isEqualTo("advanced.PhoneNumber");
+        assertThat(schema.field(99)).isNull();
+        assertThat(schema.serialize(dynamic)).isEqualTo(user.toByteArray());
+    }
+
+    /**
+     * a schema registered at runtime, readable by old generated code
+     */
+    @Test
+    public void registersSchemaAtRuntime() throws Exception {
+        assertThat(registry.register(userV3Set())).containsExactly("runtime.UserV3");
+
+        MessageSchema schema = registry.get("runtime.UserV3");
+        assertThat(schema.isCompiled()).isFalse();
+        FieldDescriptor team = schema.field("team");
+        Message v3 = schema.newBuilder()
+                .setField(schema.field("id"), 3L)
+                .setField(schema.field("name"), "Runtime")
+                .setField(team, "core")
+                .build();
+
+        VersioningProto.UserV2 v2 = VersioningProto.UserV2.parseFrom(schema.serialize(v3));
+        assertThat(v2.getName()).isEqualTo("Runtime");
+        assertThat(v2.getUnknownFields().hasField(5)).isTrue();
+    }
+
+    /**
+     * a set cannot redefine a compiled or registered type, re-sending an identical set is a no-op
+     */
+    @Test
+    public void rejectsRedefinition() {
+        DescriptorProto hijacked = DescriptorProto.newBuilder()
+                .setName("User")
+                .addField(field("id", 1, FieldDescriptorProto.Type.TYPE_STRING))
+                .build();
+        FileDescriptorSet redefinesCompiled = FileDescriptorSet.newBuilder()
+                .addFile(FileDescriptorProto.newBuilder()
+                        .setName("evil/user.proto")
+                        .setPackage("advanced")
+                        .setSyntax("proto3")
+                        .addMessageType(hijacked))
+                .build();
+        assertThatThrownBy(() -> registry.register(redefinesCompiled))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("advanced.User");
+        assertThat(registry.get("advanced.User").isCompiled()).isTrue();
+
+        registry.register(userV3Set());
+        assertThat(registry.register(userV3Set())).isEmpty();
+
+        FileDescriptorSet changedV3 = userV3Set().toBuilder()
+                .setFile(0, userV3Set().getFile(0).toBuilder()
+                        .setMessageType(0, hijacked.toBuilder().setName("UserV3")))
+                .build();
+        assertThatThrownBy(() -> registry.register(changedV3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("runtime/user_v3.proto");
+        assertThat(registry.get("runtime.UserV3").field("team")).isNotNull();
+    }
+
+    /**
+     * registration stops at protobuf.schemas.max-types
+     */
+    @Test
+    public void rejectsSetsBeyondTypeLimit() {
+        SchemaRegistry small = new SchemaRegistry("", registry.messageTypes().size());
+        assertThatThrownBy(() -> small.register(userV3Set()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("full");
+        assertThat(small.messageTypes()).doesNotContain("runtime.UserV3");
+    }
+
+    /**
+     * files that depend on each other are rejected instead of recursing until the stack overflows
+     */
+    @Test
+    public void rejectsDependencyCycles() {
+        FileDescriptorSet cycle = FileDescriptorSet.newBuilder()
+                .addFile(FileDescriptorProto.newBuilder()
+                        .setName("cycle/a.proto")
+                        .setPackage("cycle")
+                        .addDependency("cycle/b.proto")
+                        .addMessageType(DescriptorProto.newBuilder().setName("A")))
+                .addFile(FileDescriptorProto.newBuilder()
+                        .setName("cycle/b.proto")
+                        .setPackage("cycle")
+                        .addDependency("cycle/a.proto")
+                        .addMessageType(DescriptorProto.newBuilder().setName("B")))
+                .build();
+
+        assertThatThrownBy(() -> registry.register(cycle))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Dependency cycle: cycle/a.proto -> cycle/b.proto -> cycle/a.proto");
+        assertThat(registry.messageTypes()).doesNotContain("cycle.A", "cycle.B");
+    }
+
+    /**
+     * the runtime-only copy of advanced.User (used by DynamicMessageBenchmark) reads the generated bytes
+     */
+    @Test
+    public void runtimeOnlyCopyReadsGeneratedPayloads() throws Exception {
+        assertThat(registry.register(runtimeUserSet()))
+                .contains("runtime.advanced.User", "runtime.advanced.ContactInfo");
+        MessageSchema schema = registry.get("runtime.advanced.User");
+        assertThat(schema.isCompiled()).isFalse();
+
+        for (byte[] payload : ParseWarmup.samplePayloads().subList(0, 3)) {
+            Message runtimeOnly = schema.parse(payload);
+            assertThat(runtimeOnly.getUnknownFields().asMap()).isEmpty();
+            assertThat(schema.serialize(runtimeOnly)).isEqualTo(AdvancedUserProto.User.parseFrom(payload).toByteArray());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UserLookupLoadTest {
+
+    private void log(String title, Object value) {
+        System.out.println("[" + title + "] " + value);
+    }
+
+    /**
+     * store that counts its round trips and takes a bit of time for each
+     */
+    static class CountingStore extends UserStore {
+        final AtomicLong lookups = new AtomicLong();
+        final AtomicLong ids = new AtomicLong();
+
+        @Override
+        public User[] loadAll(long[] batch) {
+            lookups.incrementAndGet();
+            ids.addAndGet(batch.length);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.loadAll(batch);
+        }
+    }
+
+    /**
+     * concurrent requests for the same id share one load
+     */
+    @Test
+    public void singleFlightSharesInFlightLoad() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        AtomicLong loads = new AtomicLong();
+
+        CompletableFuture<String> first = singleFlight.get(1L, id -> {
+            loads.incrementAndGet();
+            return load;
+        });
+        CompletableFuture<String> second = singleFlight.get(1L, id -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertThat(second).isSameAs(first);
+        load.complete("user");
+        assertThat(first.join()).isEqualTo("user");
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    /**
+     * store lookups run on the loader pool, several at a time, never on the timer thread
+     */
+    @Test
+    public void batchesLoadInParallelOffTheTimerThread() {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        UserStore store = new UserStore() {
+            @Override
+            public User[] loadAll(long[] batch) {
+                threadNames.add(Thread.currentThread().getName());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return super.loadAll(batch);
+            }
+        };
+        UserMicroBatcher batcher = new UserMicroBatcher(store, Duration.ofMillis(1), 4, 4);
+        try {
+            List<CompletableFuture<User>> futures = new ArrayList<>();
+            for (long id = 1; id <= 64; id++) {
+                futures.add(batcher.load(id));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).join().getId()).isEqualTo(i + 1L);
+            }
+            log("loader threads", threadNames);
+            log("max parallel lookups", maxRunning.get());
+
+            assertThat(threadNames).noneMatch(name -> name.startsWith("user-micro-batcher"));
+            assertThat(maxRunning.get()).isGreaterThan(1);
+        } finally {
+            batcher.destroy();
+        }
+    }
+
+    /**
+     * Zipfian GET /advanced/users/{id} traffic: far fewer store lookups than requests
+     */
+    @Test
+    public void zipfianLoadIsCoalesced() throws Exception {
+        CountingStore store = new CountingStore();
+        UserMicroBatcher batcher = new UserMicroBatcher(store, Duration.ofMillis(1), 128, 4);
+        UserLookupService service = new UserLookupService(store, batcher, 2);
+        ZipfianIds zipf = new ZipfianIds(10_000, 1.1);
+
+        int threads = 32;
+        int requestsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        long id = zipf.next();
+                        byte[] bytes = service.getSerialized(id).join();
+                        assertThat(User.parseFrom(bytes).getId()).isEqualTo(id);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            int requests = threads * requestsPerThread;
+            log("requests", requests);
+            log("store lookups", store.lookups.get());
+            log("ids loaded", store.ids.get());
+            log("elapsed ms", elapsedMillis);
+
+            // every lookup costs 1ms, without batching this would take ~requests / threads ms
+            assertThat(store.lookups.get()).isLessThan(requests / 4);
+            assertThat(store.ids.get()).isLessThan(requests);
+        } finally {
+            executor.shutdownNow();
+            service.destroy();
+            batcher.destroy();
+        }
+    }
+
+    /**
+     * lookups still waiting for a batch when the batcher shuts down fail instead of hanging
+     */
+    @Test
+    public void destroyFailsPendingLookups() {
+        CountDownLatch release = new CountDownLatch(1);
+        UserStore store = new UserStore() {
+            @Override
+            public User[] loadAll(long[] batch) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.loadAll(batch);
+            }
+        };
+        UserMicroBatcher batcher = new UserMicroBatcher(store, Duration.ofSeconds(10), 128, 1);
+        try {
+            CompletableFuture<User> pending = batcher.load(1);
+            batcher.destroy();
+            CompletableFuture<User> late = batcher.load(2);
+
+            assertThat(pending).isCompletedExceptionally();
+            assertThat(late).isCompletedExceptionally();
+            assertThatThrownBy(pending::join).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed read/write contention: {@link UserRegistry} against the
+ * {@code ConcurrentHashMap<String, byte[]>} keyed by "user:" + id from test11.
+ * <p>
+ * mvn -Pbench test-compile exec:exec -Dbench.class=com.example.testproject.UserRegistryBenchmark
+ * runs both with 1, 2, 4, 8, 16, 32 and 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRegistryBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"10"})
+    public int writePercent;
+
+    private User[] users;
+    private byte[][] serialized;
+    private UserRegistry registry;
+    private Map<String, byte[]> stringKeyMap;
+
+    @Setup
+    public void setUp() {
+        users = new User[USERS];
+        serialized = new byte[USERS][];
+        registry = new UserRegistry();
+        stringKeyMap = new ConcurrentHashMap<>();
+        for (int id = 0; id < USERS; id++) {
+            users[id] = User.newBuilder().setId(id).setName("User " + id).addTags("vip").build();
+            serialized[id] = users[id].toByteArray();
+            registry.put(users[id]);
+            stringKeyMap.put("user:" + id, serialized[id]);
+        }
+    }
+
+    // results go to the Blackhole, returning the version as Object would box it on the write path
+    @Benchmark
+    public void registry(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(USERS);
+        if (random.nextInt(100) < writePercent) {
+            blackhole.consume(registry.put(users[id]));
+        } else {
+            blackhole.consume(registry.get(id));
+        }
+    }
+
+    @Benchmark
+    public void stringKeyMap(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(USERS);
+        if (random.nextInt(100) < writePercent) {
+            blackhole.consume(stringKeyMap.put("user:" + id, serialized[id]));
+        } else {
+            blackhole.consume(stringKeyMap.get("user:" + id));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(UserRegistryBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
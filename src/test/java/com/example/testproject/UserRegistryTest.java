@@ -0,0 +1,155 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UserRegistryTest {
+
+    private static User user(long id, String name) {
+        return User.newBuilder().setId(id).setName(name).build();
+    }
+
+    /**
+     * put / get / version / remove
+     */
+    @Test
+    public void basicOperations() {
+        UserRegistry registry = new UserRegistry();
+
+        assertThat(registry.get(1)).isNull();
+        assertThat(registry.version(1)).isZero();
+
+        long first = registry.put(user(1, "Mahmood"));
+        long second = registry.put(user(1, "Mahmood updated"));
+        assertThat(first).isPositive();
+        assertThat(second).isGreaterThan(first);
+        assertThat(registry.put(user(0, "Zero"))).isPositive();
+        assertThat(registry.put(user(-7, "Negative"))).isPositive();
+
+        assertThat(registry.get(1).getName()).isEqualTo("Mahmood updated");
+        assertThat(registry.version(1)).isEqualTo(second);
+        assertThat(registry.getVersioned(1)).isEqualTo(new UserRegistry.Versioned(user(1, "Mahmood updated"), second));
+        assertThat(registry.getVersioned(2)).isNull();
+        assertThat(registry.get(0).getName()).isEqualTo("Zero");
+        assertThat(registry.get(-7).getName()).isEqualTo("Negative");
+        assertThat(registry.size()).isEqualTo(3);
+
+        assertThat(registry.remove(1).getName()).isEqualTo("Mahmood updated");
+        assertThat(registry.remove(1)).isNull();
+        assertThat(registry.version(1)).isZero();
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    /**
+     * conditional update on the version
+     */
+    @Test
+    public void compareAndSet() {
+        UserRegistry registry = new UserRegistry();
+
+        assertThat(registry.compareAndSet(1, user(5, "not there yet"))).isFalse();
+        assertThat(registry.compareAndSet(0, user(5, "insert"))).isTrue();
+        assertThat(registry.compareAndSet(0, user(5, "insert again"))).isFalse();
+        long inserted = registry.version(5);
+        assertThat(registry.compareAndSet(inserted, user(5, "update"))).isTrue();
+        assertThat(registry.compareAndSet(inserted, user(5, "stale"))).isFalse();
+
+        assertThat(registry.get(5).getName()).isEqualTo("update");
+        assertThat(registry.version(5)).isGreaterThan(inserted);
+        assertThatThrownBy(() -> registry.compareAndSet(-1, user(5, "x")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * a version read before remove and re-insert does not match the new entry (no ABA)
+     */
+    @Test
+    public void staleCompareAndSetAfterRemoveAndReinsertFails() {
+        UserRegistry registry = new UserRegistry(1);
+        registry.put(user(7, "original"));
+        UserRegistry.Versioned seen = registry.getVersioned(7);
+
+        registry.remove(7);
+        long recreated = registry.put(user(7, "recreated"));
+
+        assertThat(recreated).isGreaterThan(seen.version());
+        assertThat(registry.compareAndSet(seen.version(), user(7, "stale overwrite"))).isFalse();
+        assertThat(registry.get(7).getName()).isEqualTo("recreated");
+    }
+
+    /**
+     * a single shard grows and keeps probe chains valid across removals
+     */
+    @Test
+    public void resizeAndRemoveInOneShard() {
+        UserRegistry registry = new UserRegistry(1);
+        for (long id = 0; id < 10_000; id++) {
+            registry.put(user(id, "u" + id));
+        }
+        for (long id = 0; id < 10_000; id += 2) {
+            assertThat(registry.remove(id)).isNotNull();
+        }
+        assertThat(registry.size()).isEqualTo(5_000);
+        for (long id = 0; id < 10_000; id++) {
+            if (id % 2 == 0) {
+                assertThat(registry.get(id)).isNull();
+            } else {
+                assertThat(registry.get(id).getName()).isEqualTo("u" + id);
+            }
+        }
+    }
+
+    /**
+     * concurrent read-modify-write through compareAndSet loses no update
+     */
+    @Test
+    public void concurrentCompareAndSet() throws Exception {
+        UserRegistry registry = new UserRegistry(4);
+        int threads = 8;
+        int increments = 2_000;
+        for (long id = 0; id < 4; id++) {
+            registry.put(User.newBuilder().setId(id).addTags("0").build());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        long id = i % 4;
+                        while (true) {
+                            UserRegistry.Versioned current = registry.getVersioned(id);
+                            int counter = Integer.parseInt(current.user().getTags(0));
+                            User next = current.user().toBuilder().setTags(0, String.valueOf(counter + 1)).build();
+                            if (registry.compareAndSet(current.version(), next)) {
+                                break;
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = 0;
+        for (long id = 0; id < 4; id++) {
+            total += Integer.parseInt(registry.get(id).getTags(0));
+        }
+        assertThat(total).isEqualTo(threads * increments);
+    }
+}
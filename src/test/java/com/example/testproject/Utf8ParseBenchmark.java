@@ -0,0 +1,72 @@
+package com.example.testproject;
+
+import com.example.testproject.proto.advanced.AdvancedUserProto.*;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User.parseFrom (decodes every string) against LazyUser (validates, decodes on access)
+ * for ASCII-heavy and mixed-language payloads.
+ * <p>
+ * mvn -Pbench test-compile exec:exec -Dbench.args=Utf8ParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Utf8ParseBenchmark {
+
+    @Param({"ascii", "mixed"})
+    public String text;
+
+    private byte[] payload;
+    private String expectedName;
+
+    @Setup
+    public void setUp() {
+        boolean ascii = text.equals("ascii");
+        expectedName = ascii ? "Mahmood Saneian Jahromi" : "محمود ثانیان جهرمی";
+        User.Builder builder = User.newBuilder()
+                .setId(42)
+                .setName(expectedName)
+                .setNickname(ascii ? "Mahmood" : "ماهی")
+                .setGender(Gender.MALE)
+                .setContact(ContactInfo.newBuilder()
+                        .setAddress(ascii ? "Jahrom, Fars Province, Motahari Street 12" : "جهرم، استان فارس، خیابان مطهری ۱۲")
+                        .setZip("74188"))
+                .setEmailLogin("mahmoodsaneian1@gmail.com");
+        for (int i = 0; i < 8; i++) {
+            builder.addTags((ascii ? "tag-" : "برچسب-") + i);
+        }
+        payload = builder.build().toByteArray();
+    }
+
+    @Benchmark
+    public long standardParse() throws InvalidProtocolBufferException {
+        return User.parseFrom(payload).getId();
+    }
+
+    @Benchmark
+    public long lazyParse() throws InvalidProtocolBufferException {
+        return LazyUser.parse(payload).getId();
+    }
+
+    @Benchmark
+    public boolean standardParseCompareName() throws InvalidProtocolBufferException {
+        return User.parseFrom(payload).getName().equals(expectedName);
+    }
+
+    @Benchmark
+    public boolean lazyParseCompareName() throws InvalidProtocolBufferException {
+        return LazyUser.parse(payload).getName().contentEquals(expectedName);
+    }
+
+    @Benchmark
+    public User lazyParseToUser() throws InvalidProtocolBufferException {
+        return LazyUser.parse(payload).toUser();
+    }
+}
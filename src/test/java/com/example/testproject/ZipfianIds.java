@@ -0,0 +1,29 @@
+package com.example.testproject;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf distributed ids in [1, n]: a few hot ids get most of the traffic.
+ */
+public class ZipfianIds {
+
+    private final double[] cdf;
+
+    public ZipfianIds(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public long next() {
+        int index = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+        return (index >= 0 ? index : -index - 1) + 1L;
+    }
+}